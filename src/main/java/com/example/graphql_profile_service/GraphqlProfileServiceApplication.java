@@ -3,6 +3,7 @@ package com.example.graphql_profile_service;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * GraphQL Profile Service Application
@@ -13,6 +14,7 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  * Funcionalidades:
  * - Consultas GraphQL para perfiles y preferencias
  * - Gestión de artistas favoritos (integración con Spotify API)
+ * - Tareas programadas (renovación del token de Spotify, sincronización de la réplica de usuarios)
  * - Gestión de géneros musicales favoritos
  * - Comunicación REST con user-service (8081)
  * - Registro en Eureka Server (8761)
@@ -29,9 +31,15 @@ import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
  * - favorite_artists
  * - favorite_genres
  * - music_genres
+ * - artists (catálogo local de metadatos de Spotify)
+ * - user_replicas (réplica local de usuarios de user-service)
+ * - replication_watermarks (posición de la sincronización incremental)
+ * - persisted_queries (queries GraphQL registradas por hash, APQ)
+ * - scheduler_leases (instancia que ejecuta cada tarea programada compartida)
  */
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableScheduling
 public class GraphqlProfileServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,182 @@
+package com.example.graphql_profile_service.config;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Límite de concurrencia adaptativo por gradiente de latencia (estilo Gradient2)
+ *
+ * Se compara la latencia reciente (promedio de la última ventana) con una
+ * latencia de referencia de largo plazo (EWMA de las ventanas anteriores):
+ *
+ *   gradiente = clamp(tolerance * largo / corto, 0.5, 1)
+ *   nuevo     = límite * gradiente + sqrt(límite)
+ *   límite    = límite * (1 - smoothing) + nuevo * smoothing
+ *
+ * Mientras la latencia se mantiene, el límite crece de a sqrt(límite); cuando
+ * los requests empiezan a hacer cola la latencia sube, el gradiente baja de 1
+ * y el límite se achica hasta que la cola desaparece. No hace falta conocer
+ * la capacidad del servicio de antemano.
+ *
+ * Si la ventana no llegó a usar la mitad del límite (poco tráfico) no se
+ * ajusta: sin carga la latencia no dice nada sobre la capacidad. Si la
+ * latencia corta queda muy por debajo de la larga (la carga bajó), la
+ * referencia larga se acerca más rápido para no quedar inflada.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimit {
+
+    // Ventanas que promedia la latencia de referencia
+    private static final int LONG_WINDOW = 600;
+
+    // Muestras mínimas para cerrar una ventana
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final String name;
+    private final Settings settings;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double estimatedLimit;
+
+    // Ventana actual (protegida por this)
+    private long windowStartNanos;
+    private long windowRttSumNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    // Latencia de referencia (0 = sin datos todavía)
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimit(String name, Settings settings) {
+        this(name, settings, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimit(String name, Settings settings, LongSupplier nanoClock) {
+        this.name = name;
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        this.estimatedLimit = clamp(settings.initialLimit());
+        this.windowStartNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Toma un lugar si hay capacidad; el Permit debe liberarse al terminar el request
+     *
+     * @return vacío si ya hay tantos requests en curso como el límite (descartar)
+     */
+    public Optional<Permit> tryAcquire() {
+        int limit = getLimit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Optional.of(new Permit(nanoClock.getAsLong(), current + 1));
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Agrega una muestra de latencia y, al cerrar la ventana, recalcula el límite
+     */
+    synchronized void onSample(long rttNanos, int inFlightAtStart, long now) {
+        windowRttSumNanos += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+
+        if (windowSamples < MIN_WINDOW_SAMPLES || now - windowStartNanos < settings.window().toNanos()) {
+            return;
+        }
+
+        double shortRttNanos = (double) windowRttSumNanos / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+
+        windowStartNanos = now;
+        windowRttSumNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+
+        updateLimit(shortRttNanos, maxInFlight);
+    }
+
+    private void updateLimit(double shortRttNanos, int maxInFlight) {
+        if (longRttNanos == 0) {
+            longRttNanos = shortRttNanos;
+        } else {
+            longRttNanos += (shortRttNanos - longRttNanos) * 2.0 / (LONG_WINDOW + 1);
+            // La carga bajó: la referencia se acerca más rápido
+            if (longRttNanos / shortRttNanos > 2) {
+                longRttNanos *= 0.95;
+            }
+        }
+
+        double limit = estimatedLimit;
+        if (maxInFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, settings.tolerance() * longRttNanos / shortRttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = clamp(limit * (1 - settings.smoothing()) + newLimit * settings.smoothing());
+
+        if ((int) newLimit != (int) limit) {
+            log.debug("Límite de concurrencia {}: {} -> {} (rtt corto={}ms, largo={}ms)", name, (int) limit,
+                    (int) newLimit, Math.round(shortRttNanos / 1_000_000), Math.round(longRttNanos / 1_000_000));
+        }
+        estimatedLimit = newLimit;
+    }
+
+    private double clamp(double limit) {
+        return Math.max(settings.minLimit(), Math.min(settings.maxLimit(), limit));
+    }
+
+    /**
+     * Lugar tomado en el límite; release() es idempotente
+     */
+    public class Permit {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+                long now = nanoClock.getAsLong();
+                onSample(now - startNanos, inFlightAtStart, now);
+            }
+        }
+    }
+
+    /**
+     * @param initialLimit Límite inicial
+     * @param minLimit     Nunca baja de acá
+     * @param maxLimit     Nunca sube de acá
+     * @param tolerance    Cuánto puede crecer la latencia antes de achicar el límite (1.5 = 50%)
+     * @param smoothing    Peso de cada ajuste (0..1)
+     * @param window       Duración mínima de una ventana de muestras
+     */
+    public record Settings(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+            Duration window) {
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.graphql_profile_service.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.HexFormat;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.authentication.AccountStatusUserDetailsChecker;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AuthenticationProvider con memoización de credenciales verificadas
+ *
+ * BCrypt cuesta decenas de ms de CPU por verificación. Una vez que un par
+ * email/password se verificó con BCrypt, se guarda un HMAC-SHA256 de ese par
+ * (clave aleatoria por proceso, el password nunca se guarda) durante un TTL corto.
+ * Un request repetido del mismo cliente solo calcula el HMAC.
+ *
+ * - Si el hash guardado en user-service cambia, la entrada deja de valer
+ * - Los flags de estado de la cuenta se validan en cada request
+ * - Métricas: cache.* con tag cache=verified-credentials
+ */
+@Slf4j
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final UserDetailsService userDetailsService;
+    private final SecretKeySpec hmacKey;
+    private final AccountStatusUserDetailsChecker statusChecker = new AccountStatusUserDetailsChecker();
+
+    // HMAC(email, password) -> hash de password contra el que se verificó
+    private final Cache<String, String> verifiedCredentials;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate,
+            UserDetailsService userDetailsService,
+            Duration ttl,
+            long maximumSize,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.userDetailsService = userDetailsService;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.hmacKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+
+        this.verifiedCredentials = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedCredentials, "verified-credentials");
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String email = authentication.getName();
+        String key = credentialsKey(email, authentication.getCredentials().toString());
+
+        // Principal desde la caché de CustomUserDetailsService (hash y flags vigentes)
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(email);
+        } catch (UsernameNotFoundException e) {
+            // Igual que DaoAuthenticationProvider: no revelar si el usuario existe
+            throw new BadCredentialsException("Bad credentials", e);
+        }
+
+        String verifiedHash = verifiedCredentials.getIfPresent(key);
+        if (verifiedHash != null && verifiedHash.equals(user.getPassword())) {
+            statusChecker.check(user);
+            log.debug("Credenciales ya verificadas para {}, sin BCrypt", email);
+
+            UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken
+                    .authenticated(user, null, user.getAuthorities());
+            result.setDetails(authentication.getDetails());
+            return result;
+        }
+
+        // Verificación completa (BCrypt) y memoización del resultado
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated() && user.getPassword() != null) {
+            verifiedCredentials.put(key, user.getPassword());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    /**
+     * HMAC-SHA256 de email + password con la clave del proceso
+     */
+    private String credentialsKey(String email, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            mac.update(email.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return HexFormat.of().formatHex(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.graphql_profile_service.config;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.graphql_profile_service.service.PersistedQueryStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryIdInvalid;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caché de documentos GraphQL ya parseados y validados + automatic persisted queries
+ *
+ * Los clientes mandan siempre las mismas operaciones: el documento parseado y
+ * validado se guarda en una caché acotada, con el SHA-256 del texto como clave,
+ * y las operaciones repetidas no vuelven a parsear ni validar.
+ *
+ * APQ (protocolo de Apollo, extensions.persistedQuery.sha256Hash): el cliente
+ * puede mandar solo el hash. Se resuelve desde esta caché o, si no está, desde
+ * PersistedQueryStore (tabla persisted_queries). Si nadie la registró se
+ * responde PersistedQueryNotFound y el cliente reintenta con hash + query,
+ * que queda registrada. Los documentos con errores no se cachean.
+ *
+ * Si el cliente manda hash + query, el hash tiene que ser el SHA-256 de esa
+ * query (si no, PersistedQueryIdInvalid): el documento que se ejecuta es
+ * siempre el del texto que vio PublicGraphQLOperationFilter.
+ *
+ * Métricas:
+ * - cache.gets{cache=graphql.documents} (hit/miss: hit ratio)
+ * - graphql.document.parse (tiempo de parseo + validación en cada miss)
+ * - graphql.document.parse.saved (segundos de parseo evitados por hits)
+ * - graphql.apq.bytes.saved (bytes de query que no viajaron gracias a APQ)
+ * - graphql.apq.requests (result = hit | stored | registered | not_found | invalid)
+ */
+@Component
+@Slf4j
+public class CachingDocumentProvider implements PreparsedDocumentProvider {
+
+    private final PersistedQueryStore persistedQueryStore;
+    private final MeterRegistry meterRegistry;
+    private final boolean persistedQueriesEnabled;
+
+    private final Cache<String, CachedDocument> documents;
+    private final PersistedQuerySupport persistedQuerySupport;
+
+    private final Timer parseTimer;
+    private final Counter parseTimeSaved;
+    private final DistributionSummary apqBytesSaved;
+
+    public CachingDocumentProvider(
+            PersistedQueryStore persistedQueryStore,
+            MeterRegistry meterRegistry,
+            @Value("${graphql.document-cache.maximum-size:1000}") long maximumSize,
+            @Value("${graphql.persisted-queries.enabled:true}") boolean persistedQueriesEnabled) {
+        this.persistedQueryStore = persistedQueryStore;
+        this.meterRegistry = meterRegistry;
+        this.persistedQueriesEnabled = persistedQueriesEnabled;
+
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, "graphql.documents");
+
+        this.persistedQuerySupport = new ApolloPersistedQuerySupport(new PersistedDocuments());
+
+        this.parseTimer = Timer.builder("graphql.document.parse")
+                .description("Parseo + validación de documentos GraphQL que no estaban en caché")
+                .register(meterRegistry);
+        this.parseTimeSaved = Counter.builder("graphql.document.parse.saved")
+                .description("Tiempo de parseo + validación evitado por la caché de documentos")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.apqBytesSaved = DistributionSummary.builder("graphql.apq.bytes.saved")
+                .description("Bytes de query que el cliente no mandó gracias a APQ")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        if (persistedQueriesEnabled && isPersistedQueryRequest(executionInput)) {
+            return persistedQuerySupport.getDocumentAsync(executionInput, parseAndValidateFunction);
+        }
+
+        String query = executionInput.getQuery();
+        String hash = sha256(query);
+
+        CachedDocument cached = documents.getIfPresent(hash);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(hit(cached));
+        }
+
+        return CompletableFuture.completedFuture(
+                parseAndCache(hash, query, () -> parseAndValidateFunction.apply(executionInput)).entry());
+    }
+
+    /**
+     * Caché de APQ: mismas entradas que las queries normales (el hash es el SHA-256 del texto)
+     */
+    private class PersistedDocuments implements PersistedQueryCache {
+
+        @Override
+        public CompletableFuture<PreparsedDocumentEntry> getPersistedQueryDocumentAsync(Object persistedQueryId,
+                ExecutionInput executionInput, PersistedQueryCacheMiss onCacheMiss) {
+            String hash = persistedQueryId.toString().toLowerCase(Locale.ROOT);
+            boolean hashOnly = isHashOnly(executionInput.getQuery());
+
+            // La caché se busca por hash: sin esto se ejecutaría otra query que la enviada
+            if (!hashOnly && !sha256(executionInput.getQuery()).equals(hash)) {
+                countPersistedQuery("invalid");
+                throw new PersistedQueryIdInvalid(persistedQueryId);
+            }
+
+            CachedDocument cached = documents.getIfPresent(hash);
+            if (cached != null) {
+                if (hashOnly) {
+                    apqBytesSaved.record(cached.querySize());
+                }
+                countPersistedQuery("hit");
+                return CompletableFuture.completedFuture(hit(cached));
+            }
+
+            String query = hashOnly
+                    ? persistedQueryStore.find(hash).orElse(null)
+                    : executionInput.getQuery();
+
+            if (query == null) {
+                countPersistedQuery("not_found");
+            }
+
+            // onCacheMiss lanza PersistedQueryNotFound sin texto
+            CachedDocument parsed = parseAndCache(hash, query, () -> onCacheMiss.apply(query));
+
+            if (hashOnly) {
+                apqBytesSaved.record(parsed.querySize());
+                countPersistedQuery("stored");
+            } else if (!parsed.entry().hasErrors()) {
+                persistedQueryStore.save(hash, query);
+                countPersistedQuery("registered");
+            }
+
+            return CompletableFuture.completedFuture(parsed.entry());
+        }
+    }
+
+    private CachedDocument parseAndCache(String hash, String query, Supplier<PreparsedDocumentEntry> parseAndValidate) {
+        long startNanos = System.nanoTime();
+        PreparsedDocumentEntry entry = parseAndValidate.get();
+        long parseNanos = System.nanoTime() - startNanos;
+
+        parseTimer.record(parseNanos, TimeUnit.NANOSECONDS);
+
+        CachedDocument document = new CachedDocument(entry, parseNanos, query.getBytes(StandardCharsets.UTF_8).length);
+        if (!entry.hasErrors()) {
+            documents.put(hash, document);
+        } else {
+            log.debug("Documento GraphQL con errores, no se cachea: {}", hash);
+        }
+        return document;
+    }
+
+    private PreparsedDocumentEntry hit(CachedDocument cached) {
+        parseTimeSaved.increment(cached.parseNanos() / 1_000_000_000.0);
+        return cached.entry();
+    }
+
+    private void countPersistedQuery(String result) {
+        meterRegistry.counter("graphql.apq.requests", "result", result).increment();
+    }
+
+    private static boolean isPersistedQueryRequest(ExecutionInput executionInput) {
+        Map<String, Object> extensions = executionInput.getExtensions();
+        return extensions != null && extensions.get("persistedQuery") instanceof Map;
+    }
+
+    /**
+     * true si la request APQ no trae texto (solo el hash)
+     */
+    static boolean isHashOnly(String query) {
+        return query == null || query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query);
+    }
+
+    /**
+     * SHA-256 (hex, minúsculas) del texto de una query: clave de la caché y hash de APQ
+     */
+    public static String sha256(String query) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(query.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Documento parseado y validado, con lo que costó obtenerlo
+     */
+    private record CachedDocument(PreparsedDocumentEntry entry, long parseNanos, int querySize) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.graphql_profile_service.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.graphql_profile_service.config.ConcurrencyLimitFilter.Lane;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Concurrency Limit Configuration
+ * Registra ConcurrencyLimitFilter en /graphql, con un límite adaptativo por carril
+ *
+ * Orden de los filtros de /graphql: deadline, clasificación pública,
+ * límite de concurrencia y recién después Spring Security (los requests
+ * descartados no pagan autenticación)
+ */
+@Configuration
+public class ConcurrencyLimitConfig {
+
+    @Value("${graphql.concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    // Carril público (getAllGenres, searchGenres)
+    @Value("${graphql.concurrency-limit.public.initial-limit:20}")
+    private int publicInitialLimit;
+
+    @Value("${graphql.concurrency-limit.public.min-limit:4}")
+    private int publicMinLimit;
+
+    @Value("${graphql.concurrency-limit.public.max-limit:100}")
+    private int publicMaxLimit;
+
+    // Carril autenticado (preferencias, mutations)
+    @Value("${graphql.concurrency-limit.authenticated.initial-limit:20}")
+    private int authenticatedInitialLimit;
+
+    @Value("${graphql.concurrency-limit.authenticated.min-limit:4}")
+    private int authenticatedMinLimit;
+
+    @Value("${graphql.concurrency-limit.authenticated.max-limit:150}")
+    private int authenticatedMaxLimit;
+
+    // Cuánto puede crecer la latencia antes de achicar el límite (1.5 = 50%)
+    @Value("${graphql.concurrency-limit.tolerance:1.5}")
+    private double tolerance;
+
+    // Peso de cada ajuste del límite (0..1)
+    @Value("${graphql.concurrency-limit.smoothing:0.2}")
+    private double smoothing;
+
+    // Duración mínima de cada ventana de muestras de latencia
+    @Value("${graphql.concurrency-limit.window:1s}")
+    private Duration window;
+
+    // Retry-After de los 503
+    @Value("${graphql.concurrency-limit.retry-after:1s}")
+    private Duration retryAfter;
+
+    /**
+     * Después de PublicGraphQLOperationFilter (necesita saber el carril), antes de Spring Security
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(MeterRegistry meterRegistry) {
+        Map<Lane, AdaptiveConcurrencyLimit.Settings> settings = Map.of(
+                Lane.PUBLIC, new AdaptiveConcurrencyLimit.Settings(
+                        publicInitialLimit, publicMinLimit, publicMaxLimit, tolerance, smoothing, window),
+                Lane.AUTHENTICATED, new AdaptiveConcurrencyLimit.Settings(
+                        authenticatedInitialLimit, authenticatedMinLimit, authenticatedMaxLimit,
+                        tolerance, smoothing, window));
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(settings, retryAfter, meterRegistry));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        registration.addUrlPatterns("/graphql");
+        registration.setEnabled(enabled);
+        return registration;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.graphql_profile_service.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Load shedding en /graphql con límites de concurrencia adaptativos
+ *
+ * Cada request toma un lugar en el límite de su carril antes de autenticarse
+ * y ejecutar la operación; si el carril está lleno se responde de inmediato
+ * 503 con Retry-After (en lugar de esperar en la cola de Tomcat hasta que
+ * venza el timeout). El límite se ajusta solo según la latencia observada
+ * (ver AdaptiveConcurrencyLimit).
+ *
+ * Carriles:
+ * - PUBLIC: operaciones públicas de géneros (marcadas por PublicGraphQLOperationFilter)
+ * - AUTHENTICATED: todo lo demás (preferencias, mutations)
+ * Así una avalancha de consultas públicas no deja sin lugar a los usuarios.
+ *
+ * Spring GraphQL responde de forma asíncrona: el lugar se libera cuando
+ * termina el request asíncrono, no cuando vuelve el hilo del filtro.
+ *
+ * Métricas (tag lane): graphql.concurrency.limit, graphql.concurrency.inflight
+ * y graphql.concurrency.shed
+ *
+ * No es un @Component: ConcurrencyLimitConfig lo registra solo para /graphql
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String OVERLOADED_BODY = """
+            {"errors":[{"message":"Service overloaded, retry later","extensions":{"classification":"OVERLOADED"}}]}""";
+
+    public enum Lane {
+        PUBLIC,
+        AUTHENTICATED
+    }
+
+    private final Map<Lane, AdaptiveConcurrencyLimit> limits = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> shed = new EnumMap<>(Lane.class);
+    private final String retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(Map<Lane, AdaptiveConcurrencyLimit.Settings> settings, Duration retryAfter,
+            MeterRegistry meterRegistry) {
+        this.retryAfterSeconds = String.valueOf(Math.max(1, retryAfter.toSeconds()));
+
+        for (Lane lane : Lane.values()) {
+            String tag = lane.name().toLowerCase(Locale.ROOT);
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(tag, settings.get(lane));
+            limits.put(lane, limit);
+
+            Gauge.builder("graphql.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                    .description("Límite de concurrencia actual de /graphql")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            Gauge.builder("graphql.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                    .description("Requests de /graphql en curso")
+                    .tag("lane", tag)
+                    .register(meterRegistry);
+            shed.put(lane, Counter.builder("graphql.concurrency.shed")
+                    .description("Requests de /graphql descartados por superar el límite")
+                    .tag("lane", tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        Lane lane = PublicGraphQLOperationFilter.PUBLIC_OPERATION.matches(request) ? Lane.PUBLIC : Lane.AUTHENTICATED;
+        AdaptiveConcurrencyLimit limit = limits.get(lane);
+
+        Optional<AdaptiveConcurrencyLimit.Permit> acquired = limit.tryAcquire();
+        if (acquired.isEmpty()) {
+            shed.get(lane).increment();
+            log.debug("Request descartado en el carril {} (límite {})", lane, limit.getLimit());
+            reject(response);
+            return;
+        }
+
+        AdaptiveConcurrencyLimit.Permit permit = acquired.get();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleasingListener(permit));
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(OVERLOADED_BODY);
+    }
+
+    /**
+     * Libera el lugar cuando termina (o falla) el request asíncrono
+     */
+    private record ReleasingListener(AdaptiveConcurrencyLimit.Permit permit) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
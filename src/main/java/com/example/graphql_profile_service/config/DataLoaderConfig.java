@@ -0,0 +1,193 @@
+package com.example.graphql_profile_service.config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+
+import com.example.graphql_profile_service.dto.ArtistDTO;
+import com.example.graphql_profile_service.dto.FavoriteArtistRowDTO;
+import com.example.graphql_profile_service.model.FavoriteGenre;
+import com.example.graphql_profile_service.model.MusicGenre;
+import com.example.graphql_profile_service.model.Profile;
+import com.example.graphql_profile_service.model.UserPreference;
+import com.example.graphql_profile_service.repository.FavoriteArtistRepository;
+import com.example.graphql_profile_service.repository.FavoriteGenreRepository;
+import com.example.graphql_profile_service.repository.ProfileRepository;
+import com.example.graphql_profile_service.repository.UserPreferenceRepository;
+import com.example.graphql_profile_service.service.ArtistCatalogService;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * DataLoader Configuration
+ * Registra los DataLoaders de GraphQL (uno por request, vía BatchLoaderRegistry)
+ *
+ * Cada loader junta las claves pedidas por todos los campos de la operación
+ * (alias incluidos) y las resuelve en una sola consulta SQL IN:
+ *
+ * - preferencesByUserId: perfil + preferencias (una consulta por entidad)
+ * - favoriteGenresByProfileId: géneros favoritos con su género
+ * - favoriteArtistsByProfileId: artistas favoritos unidos con el catálogo;
+ *   los que faltan o están viejos van a Spotify en un solo multi-get, solo
+ *   para las claves que piden datos de display (FavoriteArtistsKey.details).
+ *   El nivel de detalle es parte de la clave: el DataLoader cachea por clave,
+ *   así un alias que pide solo spotifyId no le quita los datos a otro del
+ *   mismo perfil que sí los pide
+ *
+ * Perfil y preferencias van en el mismo loader: graphql-java 22 no despacha
+ * un DataLoader encadenado dentro del callback de otro.
+ *
+ * En los resolvers, el nombre del parámetro DataLoader debe coincidir con el del loader
+ */
+@Configuration
+@Slf4j
+public class DataLoaderConfig {
+
+    public static final String PREFERENCES_BY_USER_ID = "preferencesByUserId";
+    public static final String FAVORITE_GENRES_BY_PROFILE_ID = "favoriteGenresByProfileId";
+    public static final String FAVORITE_ARTISTS_BY_PROFILE_ID = "favoriteArtistsByProfileId";
+
+    private final ProfileRepository profileRepository;
+    private final UserPreferenceRepository preferenceRepository;
+    private final FavoriteGenreRepository favoriteGenreRepository;
+    private final FavoriteArtistRepository favoriteArtistRepository;
+    private final ArtistCatalogService artistCatalogService;
+
+    public DataLoaderConfig(BatchLoaderRegistry registry,
+            ProfileRepository profileRepository,
+            UserPreferenceRepository preferenceRepository,
+            FavoriteGenreRepository favoriteGenreRepository,
+            FavoriteArtistRepository favoriteArtistRepository,
+            ArtistCatalogService artistCatalogService) {
+        this.profileRepository = profileRepository;
+        this.preferenceRepository = preferenceRepository;
+        this.favoriteGenreRepository = favoriteGenreRepository;
+        this.favoriteArtistRepository = favoriteArtistRepository;
+        this.artistCatalogService = artistCatalogService;
+
+        registry.<Integer, UserPreferenceEntry>forName(PREFERENCES_BY_USER_ID)
+                .registerMappedBatchLoader((userIds, env) -> Mono.fromCallable(() -> loadPreferences(userIds)));
+
+        registry.<Integer, List<MusicGenre>>forName(FAVORITE_GENRES_BY_PROFILE_ID)
+                .registerMappedBatchLoader((profileIds, env) -> Mono.fromCallable(() -> loadFavoriteGenres(profileIds)));
+
+        registry.<FavoriteArtistsKey, List<ArtistDTO>>forName(FAVORITE_ARTISTS_BY_PROFILE_ID)
+                .registerMappedBatchLoader((keys, env) -> Mono.fromCallable(() -> loadFavoriteArtists(keys)));
+    }
+
+    /**
+     * Clave de favoriteArtistsByProfileId
+     *
+     * @param profileId ID del perfil
+     * @param details   Completar con datos de display (catálogo/Spotify); false = solo spotifyId
+     */
+    public record FavoriteArtistsKey(Integer profileId, boolean details) {
+    }
+
+    /**
+     * Perfil y preferencias de un usuario (cualquiera de los dos puede ser null)
+     */
+    public record UserPreferenceEntry(Profile profile, UserPreference preference) {
+    }
+
+    private Map<Integer, UserPreferenceEntry> loadPreferences(Set<Integer> userIds) {
+        log.debug("DataLoader {}: {} usuario(s)", PREFERENCES_BY_USER_ID, userIds.size());
+
+        Map<Integer, Profile> profilesByUserId = profileRepository.findByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(Profile::getUserId, Function.identity(), (first, second) -> first));
+
+        Map<Integer, UserPreference> preferencesByProfileId = profilesByUserId.isEmpty()
+                ? Map.of()
+                : preferenceRepository.findByProfileProfileIdIn(profileIdsOf(profilesByUserId.values())).stream()
+                        .collect(Collectors.toMap(pref -> pref.getProfile().getProfileId(), Function.identity(),
+                                (first, second) -> first));
+
+        Map<Integer, UserPreferenceEntry> entries = new HashMap<>();
+        for (Integer userId : userIds) {
+            Profile profile = profilesByUserId.get(userId);
+            UserPreference preference = profile != null ? preferencesByProfileId.get(profile.getProfileId()) : null;
+            entries.put(userId, new UserPreferenceEntry(profile, preference));
+        }
+        return entries;
+    }
+
+    private Map<Integer, List<MusicGenre>> loadFavoriteGenres(Set<Integer> profileIds) {
+        log.debug("DataLoader {}: {} perfil(es)", FAVORITE_GENRES_BY_PROFILE_ID, profileIds.size());
+
+        Map<Integer, List<MusicGenre>> genres = emptyListsFor(profileIds);
+        for (FavoriteGenre favorite : favoriteGenreRepository.findWithGenreByProfileIdIn(profileIds)) {
+            genres.get(favorite.getProfile().getProfileId()).add(favorite.getMusicGenre());
+        }
+        return genres;
+    }
+
+    private Map<FavoriteArtistsKey, List<ArtistDTO>> loadFavoriteArtists(Set<FavoriteArtistsKey> keys) {
+        Set<Integer> detailed = profileIdsOf(keys, true);
+        Set<Integer> plain = profileIdsOf(keys, false);
+        log.debug("DataLoader {}: {} perfil(es) con detalles, {} sin", FAVORITE_ARTISTS_BY_PROFILE_ID,
+                detailed.size(), plain.size());
+
+        Set<Integer> profileIds = new HashSet<>(detailed);
+        profileIds.addAll(plain);
+        List<FavoriteArtistRowDTO> rows = favoriteArtistRepository.findWithCatalogByProfileIdIn(profileIds);
+
+        // Una sola consulta SQL; un solo paso por el catálogo/Spotify por nivel de detalle
+        Map<Integer, List<ArtistDTO>> detailedArtists = favoriteArtists(rows, detailed, true);
+        Map<Integer, List<ArtistDTO>> plainArtists = favoriteArtists(rows, plain, false);
+
+        Map<FavoriteArtistsKey, List<ArtistDTO>> artistsByKey = new HashMap<>();
+        for (FavoriteArtistsKey key : keys) {
+            artistsByKey.put(key, (key.details() ? detailedArtists : plainArtists).get(key.profileId()));
+        }
+        return artistsByKey;
+    }
+
+    private Map<Integer, List<ArtistDTO>> favoriteArtists(List<FavoriteArtistRowDTO> allRows,
+            Set<Integer> profileIds, boolean details) {
+        Map<Integer, List<ArtistDTO>> artistsByProfileId = emptyListsFor(profileIds);
+        if (profileIds.isEmpty()) {
+            return artistsByProfileId;
+        }
+
+        List<FavoriteArtistRowDTO> rows = allRows.stream()
+                .filter(row -> profileIds.contains(row.getProfileId()))
+                .toList();
+
+        // Mismo orden que las filas
+        List<ArtistDTO> artists = details
+                ? artistCatalogService.resolveFavorites(rows)
+                : artistCatalogService.catalogFavorites(rows);
+
+        for (int i = 0; i < rows.size(); i++) {
+            artistsByProfileId.get(rows.get(i).getProfileId()).add(artists.get(i));
+        }
+        return artistsByProfileId;
+    }
+
+    private static List<Integer> profileIdsOf(Collection<Profile> profiles) {
+        return profiles.stream().map(Profile::getProfileId).toList();
+    }
+
+    private static Set<Integer> profileIdsOf(Set<FavoriteArtistsKey> keys, boolean details) {
+        return keys.stream()
+                .filter(key -> key.details() == details)
+                .map(FavoriteArtistsKey::profileId)
+                .collect(Collectors.toSet());
+    }
+
+    private static <T> Map<Integer, List<T>> emptyListsFor(Set<Integer> profileIds) {
+        Map<Integer, List<T>> lists = new HashMap<>();
+        profileIds.forEach(profileId -> lists.put(profileId, new ArrayList<>()));
+        return lists;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.graphql_profile_service.config;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import graphql.ErrorClassification;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deadline Configuration
+ * Propaga el deadline de cada operación GraphQL de punta a punta:
+ *
+ * 1. RequestDeadlineFilter: fija el deadline al llegar el request (header
+ *    o timeout por defecto, con un máximo)
+ * 2. Interceptor: lo copia al GraphQLContext de la ejecución
+ * 3. Instrumentation: cada data fetcher corre con el deadline activo en su
+ *    hilo; si ya venció, el campo no se ejecuta y devuelve null con un error
+ *    DEADLINE_EXCEEDED (el resto de la respuesta sale igual: resultado parcial)
+ * 4. Transacciones JPA: el timeout (y el de cada query) se acota al tiempo restante
+ *
+ * Los clientes de user-service y Spotify leen el deadline del hilo
+ * (ver RequestDeadline). Métrica: graphql.deadline.exceeded (tag field)
+ */
+@Configuration
+@Slf4j
+public class DeadlineConfig {
+
+    private static final ErrorClassification DEADLINE_EXCEEDED = ErrorClassification.errorClassification(
+            "DEADLINE_EXCEEDED");
+
+    // Header con el timeout que pide el cliente (ms o duración, p. ej. 2500 o 2.5s)
+    @Value("${graphql.deadline.header:X-Request-Timeout}")
+    private String headerName;
+
+    // Timeout si el cliente no manda el header
+    @Value("${graphql.deadline.default:10s}")
+    private Duration defaultTimeout;
+
+    // Máximo que puede pedir un cliente
+    @Value("${graphql.deadline.max:30s}")
+    private Duration maxTimeout;
+
+    /**
+     * Deadline por request, antes de Spring Security y de la clasificación de operaciones
+     */
+    @Bean
+    public FilterRegistrationBean<RequestDeadlineFilter> requestDeadlineFilter() {
+        FilterRegistrationBean<RequestDeadlineFilter> registration = new FilterRegistrationBean<>(
+                new RequestDeadlineFilter(headerName, defaultTimeout, maxTimeout));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 3);
+        registration.addUrlPatterns("/graphql");
+        return registration;
+    }
+
+    /**
+     * Copia el deadline del request HTTP al contexto de GraphQL
+     * (sin request HTTP, p. ej. WebSocket, se usa el timeout por defecto)
+     */
+    @Bean
+    public WebGraphQlInterceptor requestDeadlineInterceptor() {
+        return (request, chain) -> {
+            RequestDeadline deadline = request.getAttributes().get(RequestDeadline.ATTRIBUTE)
+                    instanceof RequestDeadline attribute
+                            ? attribute
+                            : RequestDeadline.after(defaultTimeout);
+
+            request.configureExecutionInput((input, builder) -> builder
+                    .graphQLContext(Map.of(RequestDeadline.ATTRIBUTE, deadline))
+                    .build());
+            return chain.next(request);
+        };
+    }
+
+    /**
+     * Corta los campos que ya no llegan a tiempo y activa el deadline en los demás
+     * Los data fetchers triviales (propiedades de un objeto) no se envuelven
+     */
+    @Bean
+    public SimplePerformantInstrumentation requestDeadlineInstrumentation(MeterRegistry meterRegistry) {
+        return new SimplePerformantInstrumentation() {
+            @Override
+            public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                    InstrumentationFieldFetchParameters parameters, InstrumentationState state) {
+                if (parameters.isTrivialDataFetcher()) {
+                    return dataFetcher;
+                }
+
+                RequestDeadline deadline = parameters.getEnvironment().getGraphQlContext()
+                        .get(RequestDeadline.ATTRIBUTE);
+                if (deadline == null) {
+                    return dataFetcher;
+                }
+
+                return environment -> {
+                    if (deadline.isExpired()) {
+                        return exceeded(environment, meterRegistry);
+                    }
+
+                    try {
+                        return deadline.callChecked(() -> dataFetcher.get(environment));
+                    } catch (Exception e) {
+                        // Falló porque se acabó el tiempo (request abortado, espera cortada)
+                        if (deadline.isExpired()) {
+                            return exceeded(environment, meterRegistry);
+                        }
+                        throw e;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Transaction manager de JPA que acota el timeout al deadline de la operación
+     * (reemplaza al de Spring Boot, que es @ConditionalOnMissingBean)
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(
+            ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        JpaTransactionManager transactionManager = new DeadlineAwareJpaTransactionManager();
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    private static DataFetcherResult<Object> exceeded(DataFetchingEnvironment environment,
+            MeterRegistry meterRegistry) {
+        String field = environment.getExecutionStepInfo().getObjectType().getName()
+                + "." + environment.getField().getName();
+        meterRegistry.counter("graphql.deadline.exceeded", "field", field).increment();
+        log.warn("⏱️ Deadline vencido, se omite {}", field);
+
+        return DataFetcherResult.newResult()
+                .error(GraphqlErrorBuilder.newError(environment)
+                        .message("Deadline exceeded")
+                        .errorType(DEADLINE_EXCEEDED)
+                        .build())
+                .build();
+    }
+
+    /**
+     * JpaTransactionManager con timeout = min(timeout configurado, tiempo restante del deadline)
+     * El timeout de la transacción también se aplica a cada query (jakarta.persistence.query.timeout)
+     */
+    static class DeadlineAwareJpaTransactionManager extends JpaTransactionManager {
+
+        @Override
+        protected int determineTimeout(TransactionDefinition definition) {
+            int timeout = super.determineTimeout(definition);
+
+            RequestDeadline deadline = RequestDeadline.current();
+            if (deadline == null) {
+                return timeout;
+            }
+
+            long remainingMillis = deadline.remaining().toMillis();
+            if (remainingMillis <= 0) {
+                throw new TransactionTimedOutException("Deadline exceeded before starting transaction");
+            }
+
+            int remainingSeconds = (int) Math.min(Integer.MAX_VALUE, (remainingMillis + 999) / 1000);
+            return timeout == TransactionDefinition.TIMEOUT_DEFAULT
+                    ? remainingSeconds
+                    : Math.min(timeout, remainingSeconds);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.graphql_profile_service.config;
 
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.graphql.execution.RuntimeWiringConfigurer;
@@ -8,7 +9,8 @@ import graphql.scalars.ExtendedScalars;
 
 /**
  * GraphQL Configuration
- * Configura tipos escalares personalizados para GraphQL
+ * Configura tipos escalares personalizados para GraphQL y la caché de
+ * documentos parseados / persisted queries (CachingDocumentProvider)
  */
 @Configuration
 public class GraphQLConfig {
@@ -38,4 +40,12 @@ public class GraphQLConfig {
                 // Tipo Time para horas sin fecha
                 .scalar(ExtendedScalars.Time);
     }
+
+    /**
+     * Usa la caché de documentos (y APQ) en lugar de parsear y validar cada request
+     */
+    @Bean
+    public GraphQlSourceBuilderCustomizer documentCacheCustomizer(CachingDocumentProvider documentProvider) {
+        return builder -> builder.configureGraphQl(graphQL -> graphQL.preparsedDocumentProvider(documentProvider));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.example.graphql_profile_service.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Instancia a la que fue cada intento de un request con hedging
+ *
+ * Mientras corre call(), LatencyAwareLoadBalancer anota aquí la instancia que
+ * eligió y si había otra disponible. El hedge se crea con forHedge(), que
+ * excluye la instancia del primer intento: así nunca va al mismo servidor.
+ * Sin balanceador (URL directa) no se anota ninguna instancia y canHedge()
+ * es false.
+ */
+public class HedgeRouting {
+
+    private static final ThreadLocal<HedgeRouting> CURRENT = new ThreadLocal<>();
+
+    private final String excludedInstance;
+    private volatile String selectedInstance;
+    private volatile boolean alternativeAvailable;
+
+    public HedgeRouting() {
+        this(null);
+    }
+
+    private HedgeRouting(String excludedInstance) {
+        this.excludedInstance = excludedInstance;
+    }
+
+    /**
+     * Ruteo del hedge: cualquier instancia menos la de este intento
+     */
+    public HedgeRouting forHedge() {
+        return new HedgeRouting(selectedInstance);
+    }
+
+    /**
+     * true si este intento pasó por el balanceador y hay otra instancia para el hedge
+     */
+    public boolean canHedge() {
+        return selectedInstance != null && alternativeAvailable;
+    }
+
+    /**
+     * Ejecuta la llamada con este ruteo activo en el hilo actual
+     */
+    public <T> T call(Supplier<T> call) {
+        HedgeRouting previous = CURRENT.get();
+        CURRENT.set(this);
+
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Ruteo activo en el hilo actual (null si no hay)
+     */
+    static HedgeRouting current() {
+        return CURRENT.get();
+    }
+
+    String excludedInstance() {
+        return excludedInstance;
+    }
+
+    void selected(String instanceId, boolean alternativeAvailable) {
+        this.selectedInstance = instanceId;
+        this.alternativeAvailable = alternativeAvailable;
+    }
+}
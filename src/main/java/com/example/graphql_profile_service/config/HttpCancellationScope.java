@@ -0,0 +1,78 @@
+package com.example.graphql_profile_service.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+
+/**
+ * Permite abortar desde otro hilo los requests HTTP hechos dentro de una llamada
+ *
+ * Mientras corre call(), DeadlineRequestFactory registra aquí cada request
+ * del RestTemplate; cancel() cierra su conexión. Se usa para cancelar el
+ * intento perdedor de un request con hedging.
+ */
+public class HttpCancellationScope {
+
+    private static final ThreadLocal<HttpCancellationScope> CURRENT = new ThreadLocal<>();
+
+    private final List<Cancellable> requests = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * Ejecuta la llamada con este scope activo en el hilo actual
+     *
+     * @return Resultado de la llamada, o null si el scope se canceló mientras corría
+     */
+    public <T> T call(Supplier<T> call) {
+        HttpCancellationScope previous = CURRENT.get();
+        CURRENT.set(this);
+
+        try {
+            return call.get();
+        } catch (RuntimeException e) {
+            if (isCancelled()) {
+                return null;
+            }
+            throw e;
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Aborta los requests en curso y los que se inicien después
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        requests.forEach(Cancellable::cancel);
+        requests.clear();
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Registra un request en el scope activo del hilo actual (si hay)
+     */
+    static void register(Cancellable request) {
+        HttpCancellationScope scope = CURRENT.get();
+        if (scope != null) {
+            scope.add(request);
+        }
+    }
+
+    private synchronized void add(Cancellable request) {
+        if (cancelled) {
+            request.cancel();
+        } else {
+            requests.add(request);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.graphql_profile_service.config;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Autenticación de los endpoints internos (/api/v1/internal/**) con un secreto compartido
+ *
+ * user-service manda el secreto en un header (por defecto X-Internal-Token);
+ * si coincide, el request queda autenticado con ROLE_INTERNAL. Si no hay
+ * secreto configurado nadie se autentica y los endpoints internos quedan
+ * cerrados.
+ *
+ * No es un @Component: SecurityConfig lo agrega solo a la cadena interna
+ */
+@Slf4j
+public class InternalTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String ROLE_INTERNAL = "ROLE_INTERNAL";
+
+    private final String headerName;
+    private final byte[] token;
+
+    public InternalTokenAuthenticationFilter(String headerName, String token) {
+        this.headerName = headerName;
+        this.token = token != null ? token.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String header = request.getHeader(headerName);
+
+        // Comparación en tiempo constante; sin secreto configurado no autentica a nadie
+        if (token.length > 0 && header != null
+                && MessageDigest.isEqual(token, header.getBytes(StandardCharsets.UTF_8))) {
+            UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken
+                    .authenticated("internal", null, List.of(new SimpleGrantedAuthority(ROLE_INTERNAL)));
+
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+        } else if (header != null) {
+            log.warn("❌ Token interno inválido en {} {}", request.getMethod(), request.getRequestURI());
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
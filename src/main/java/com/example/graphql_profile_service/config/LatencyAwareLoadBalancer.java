@@ -0,0 +1,339 @@
+package com.example.graphql_profile_service.config;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.random.RandomGenerator;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Balanceo por latencia entre instancias de un servicio en Eureka
+ * ("power of two choices" sobre peak-EWMA)
+ *
+ * Por cada instancia se lleva una latencia EWMA (sube de inmediato ante una
+ * respuesta lenta y baja gradualmente) y el número de requests en curso.
+ * En cada elección se toman dos instancias al azar y gana la de menor
+ * costo = latencia * (requests en curso + 1). Así una réplica lenta (cold start)
+ * deja de recibir tráfico sin que todas converjan sobre la misma instancia.
+ *
+ * Una instancia sin tráfico reciente vuelve poco a poco a la latencia por
+ * defecto, para que se la pruebe de nuevo.
+ *
+ * Las instancias con varios fallos seguidos (error de conexión o 5xx) se
+ * excluyen durante un tiempo; si todas están excluidas se usan todas.
+ *
+ * También es el LoadBalancerLifecycle del cliente: BlockingLoadBalancerClient
+ * le avisa el inicio y el fin de cada request para medir latencia y fallos.
+ *
+ * Con un HedgeRouting activo (requests con hedging de UserServiceClient) anota
+ * la instancia elegida y, en el hedge, excluye la del primer intento.
+ */
+@Slf4j
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer,
+        LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final Settings settings;
+    private final LongSupplier nanoClock;
+    private final RandomGenerator random;
+
+    // instanceId -> estadísticas
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            String serviceId,
+            Settings settings) {
+        this(serviceInstanceListSupplierProvider, serviceId, settings, System::nanoTime, new Random());
+    }
+
+    LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            String serviceId,
+            Settings settings,
+            LongSupplier nanoClock,
+            RandomGenerator random) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        this.random = random;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        // Se toma en el hilo del request: la lista de instancias puede llegar en otro
+        HedgeRouting routing = HedgeRouting.current();
+
+        return supplier.get(request).next().map(instances -> {
+            ServiceInstance chosen = choose(instances, routing);
+            if (chosen == null) {
+                log.warn("No hay instancias disponibles de {}", serviceId);
+                return new EmptyResponse();
+            }
+
+            if (supplier instanceof SelectedInstanceCallback callback) {
+                callback.selectedServiceInstance(chosen);
+            }
+            return new DefaultResponse(chosen);
+        });
+    }
+
+    /**
+     * Elige entre dos instancias sanas al azar la de menor costo
+     *
+     * @param instances Instancias registradas del servicio
+     * @return Instancia elegida, o null si la lista está vacía
+     */
+    ServiceInstance choose(List<ServiceInstance> instances) {
+        return choose(instances, null);
+    }
+
+    /**
+     * Como choose(instances), sin la instancia que excluye el ruteo del hedge;
+     * anota en el ruteo la instancia elegida
+     *
+     * @return Instancia elegida, o null si no queda ninguna
+     */
+    ServiceInstance choose(List<ServiceInstance> registered, HedgeRouting routing) {
+        if (registered.isEmpty()) {
+            return null;
+        }
+        forgetRemovedInstances(registered);
+
+        List<ServiceInstance> instances = registered;
+        if (routing != null && routing.excludedInstance() != null) {
+            instances = registered.stream()
+                    .filter(instance -> !instanceId(instance).equals(routing.excludedInstance()))
+                    .toList();
+        }
+        if (instances.isEmpty()) {
+            return null;
+        }
+
+        long now = nanoClock.getAsLong();
+
+        List<ServiceInstance> candidates = instances.stream()
+                .filter(instance -> !statsFor(instance).isEjected(now))
+                .toList();
+        if (candidates.isEmpty()) {
+            // Todas excluidas: mejor una instancia dudosa que ninguna
+            candidates = instances;
+        }
+
+        ServiceInstance chosen = pick(candidates, now);
+        if (routing != null) {
+            routing.selected(instanceId(chosen), candidates.size() > 1);
+        }
+        return chosen;
+    }
+
+    /**
+     * Power of two choices entre los candidatos
+     */
+    private ServiceInstance pick(List<ServiceInstance> candidates, long now) {
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return statsFor(a).cost(now) <= statsFor(b).cost(now) ? a : b;
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+        // La instancia todavía no está elegida
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (request.getContext() instanceof TimedRequestContext context) {
+            context.setRequestStartTime(nanoClock.getAsLong());
+        }
+        if (lbResponse != null && lbResponse.hasServer()) {
+            statsFor(lbResponse.getServer()).outstanding.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD
+                || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+
+        ServiceInstance instance = lbResponse.getServer();
+        InstanceStats instanceStats = statsFor(instance);
+        instanceStats.outstanding.updateAndGet(outstanding -> Math.max(0, outstanding - 1));
+
+        long now = nanoClock.getAsLong();
+        Object context = completionContext.getLoadBalancerRequest() != null
+                ? completionContext.getLoadBalancerRequest().getContext()
+                : null;
+        if (context instanceof TimedRequestContext timed && timed.getRequestStartTime() != 0) {
+            instanceStats.recordLatency(now - timed.getRequestStartTime(), now);
+        }
+
+        if (isFailure(completionContext)) {
+            if (instanceStats.recordFailure(now)) {
+                log.warn("⚠️ Instancia {} de {} excluida por {}s tras {} fallos seguidos",
+                        instanceId(instance), serviceId, settings.ejectionDuration().toSeconds(),
+                        settings.failureThreshold());
+            }
+        } else {
+            instanceStats.recordSuccess();
+        }
+    }
+
+    /**
+     * Error de conexión/IO o respuesta 5xx de la instancia
+     */
+    private boolean isFailure(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        return completionContext.getClientResponse() instanceof ResponseData response
+                && response.getHttpStatus() != null
+                && response.getHttpStatus().is5xxServerError();
+    }
+
+    /**
+     * Estadísticas de una instancia (para tests y diagnóstico)
+     */
+    InstanceStats statsFor(ServiceInstance instance) {
+        return stats.computeIfAbsent(instanceId(instance), id -> new InstanceStats());
+    }
+
+    private void forgetRemovedInstances(List<ServiceInstance> instances) {
+        if (stats.size() > instances.size()) {
+            Set<String> current = instances.stream()
+                    .map(LatencyAwareLoadBalancer::instanceId)
+                    .collect(Collectors.toSet());
+            stats.keySet().retainAll(current);
+        }
+    }
+
+    private static String instanceId(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+                ? instance.getInstanceId()
+                : instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * Parámetros del balanceo
+     *
+     * @param decay Constante de tiempo de la EWMA
+     * @param defaultLatency Latencia asumida para una instancia sin mediciones
+     * @param failureThreshold Fallos seguidos para excluir una instancia
+     * @param ejectionDuration Tiempo que la instancia queda excluida
+     */
+    public record Settings(Duration decay, Duration defaultLatency, int failureThreshold, Duration ejectionDuration) {
+    }
+
+    /**
+     * Latencia EWMA, requests en curso y fallos de una instancia
+     */
+    class InstanceStats {
+
+        final AtomicInteger outstanding = new AtomicInteger();
+
+        private double ewmaNanos = settings.defaultLatency().toNanos();
+        private long lastUpdateNanos = nanoClock.getAsLong();
+        private int consecutiveFailures;
+        private long ejectedUntilNanos;
+        private boolean ejected;
+
+        /**
+         * Peak-EWMA: una respuesta más lenta que el promedio lo reemplaza de inmediato
+         */
+        synchronized void recordLatency(long latencyNanos, long now) {
+            double w = weight(now);
+            ewmaNanos = latencyNanos > ewmaNanos
+                    ? latencyNanos
+                    : ewmaNanos * w + latencyNanos * (1 - w);
+            lastUpdateNanos = now;
+        }
+
+        /**
+         * @return true si este fallo excluye la instancia
+         */
+        synchronized boolean recordFailure(long now) {
+            consecutiveFailures++;
+            if (consecutiveFailures < settings.failureThreshold()) {
+                return false;
+            }
+
+            consecutiveFailures = 0;
+            ejected = true;
+            ejectedUntilNanos = now + settings.ejectionDuration().toNanos();
+            return true;
+        }
+
+        synchronized void recordSuccess() {
+            consecutiveFailures = 0;
+        }
+
+        synchronized boolean isEjected(long now) {
+            if (ejected && now - ejectedUntilNanos >= 0) {
+                ejected = false;
+            }
+            return ejected;
+        }
+
+        /**
+         * Costo de enviar un request más a esta instancia
+         */
+        synchronized double cost(long now) {
+            return decayed(now) * (outstanding.get() + 1);
+        }
+
+        synchronized double latencyNanos(long now) {
+            return decayed(now);
+        }
+
+        /**
+         * EWMA que, sin mediciones nuevas, vuelve hacia la latencia por defecto
+         */
+        private double decayed(long now) {
+            double w = weight(now);
+            return ewmaNanos * w + settings.defaultLatency().toNanos() * (1 - w);
+        }
+
+        private double weight(long now) {
+            long elapsed = Math.max(0, now - lastUpdateNanos);
+            return Math.exp(-(double) elapsed / settings.decay().toNanos());
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.graphql_profile_service.config;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.NonNull;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import graphql.language.Document;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.parser.Parser;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Detecta operaciones GraphQL que solo seleccionan campos raíz públicos
+ * (getAllGenres, searchGenres) para que no pasen por autenticación
+ *
+ * Corre antes de Spring Security: lee el body de POST /graphql (que queda
+ * disponible para GraphQL), parsea la operación y marca el request con un
+ * atributo. SecurityConfig usa PUBLIC_OPERATION como matcher de una cadena
+ * sin HTTP Basic ni JWT, así estas consultas no pagan BCrypt ni user-service.
+ *
+ * Cualquier operación que no sea query, que toque un campo protegido, o que
+ * no se pueda clasificar sigue por la cadena autenticada normal.
+ * La clasificación se cachea por texto de la query.
+ *
+ * Las persisted queries (solo hash, sin texto) se clasifican con la query
+ * registrada para ese hash; si aún no está registrada, van autenticadas.
+ * Con hash + query se clasifica el texto solo si el hash es su SHA-256, la
+ * misma regla que aplica CachingDocumentProvider (si no, van autenticadas).
+ */
+@Slf4j
+public class PublicGraphQLOperationFilter extends OncePerRequestFilter {
+
+    // Profundidad máxima de fragments anidados en la raíz
+    private static final int MAX_FRAGMENT_DEPTH = 10;
+
+    private static final String PUBLIC_OPERATION_ATTRIBUTE = PublicGraphQLOperationFilter.class.getName() + ".public";
+
+    /**
+     * Matcher para la cadena de seguridad pública
+     */
+    public static final RequestMatcher PUBLIC_OPERATION =
+            request -> Boolean.TRUE.equals(request.getAttribute(PUBLIC_OPERATION_ATTRIBUTE));
+
+    private final ObjectMapper objectMapper;
+    private final Set<String> publicRootFields;
+    private final int maxBodySize;
+    private final Function<String, Optional<String>> persistedQueries;
+
+    // query + operationName -> ¿solo campos públicos?
+    private final Cache<String, Boolean> classifications = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    public PublicGraphQLOperationFilter(ObjectMapper objectMapper, Set<String> publicRootFields, int maxBodySize,
+            Function<String, Optional<String>> persistedQueries) {
+        this.objectMapper = objectMapper;
+        this.publicRootFields = publicRootFields;
+        this.maxBodySize = maxBodySize;
+        this.persistedQueries = persistedQueries;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || !"/graphql".equals(request.getServletPath())
+                || request.getContentLength() < 0
+                || request.getContentLength() > maxBodySize;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        byte[] body = request.getInputStream().readNBytes(maxBodySize);
+
+        if (isPublicOperation(body)) {
+            request.setAttribute(PUBLIC_OPERATION_ATTRIBUTE, Boolean.TRUE);
+        }
+
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    private boolean isPublicOperation(byte[] body) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            if (json == null) {
+                return false;
+            }
+
+            String query = queryOf(json);
+            if (query == null) {
+                return false;
+            }
+
+            String operationName = json.hasNonNull("operationName") ? json.get("operationName").asText() : null;
+
+            return classifications.get(operationName + "\n" + query, key -> classify(query, operationName));
+
+        } catch (IOException | RuntimeException e) {
+            // No se pudo clasificar: sigue por la cadena autenticada
+            return false;
+        }
+    }
+
+    /**
+     * Texto que se va a ejecutar: el de la request o, si solo trae el hash de
+     * APQ, el registrado para ese hash (null si no hay o si no coinciden)
+     */
+    private String queryOf(JsonNode json) {
+        String query = json.hasNonNull("query") ? json.get("query").asText() : null;
+
+        JsonNode hashNode = json.path("extensions").path("persistedQuery").path("sha256Hash");
+        if (!hashNode.isTextual()) {
+            return query;
+        }
+
+        String hash = hashNode.asText().toLowerCase(Locale.ROOT);
+        if (CachingDocumentProvider.isHashOnly(query)) {
+            return persistedQueries.apply(hash).orElse(null);
+        }
+        return CachingDocumentProvider.sha256(query).equals(hash) ? query : null;
+    }
+
+    /**
+     * true si la operación es una query y todos sus campos raíz son públicos
+     */
+    private boolean classify(String query, String operationName) {
+        try {
+            Document document = Parser.parse(query);
+
+            List<OperationDefinition> operations = document.getDefinitionsOfType(OperationDefinition.class).stream()
+                    .filter(op -> operationName == null || operationName.equals(op.getName()))
+                    .toList();
+
+            // Operación ambigua o inexistente: la resolverá (y rechazará) GraphQL
+            if (operations.size() != 1) {
+                return false;
+            }
+
+            OperationDefinition operation = operations.get(0);
+            if (operation.getOperation() != OperationDefinition.Operation.QUERY) {
+                return false;
+            }
+
+            Map<String, FragmentDefinition> fragments = document.getDefinitionsOfType(FragmentDefinition.class).stream()
+                    .collect(Collectors.toMap(FragmentDefinition::getName, fragment -> fragment, (first, second) -> first));
+            boolean isPublic = onlyPublicFields(operation.getSelectionSet(), fragments, 0);
+
+            log.debug("Operación GraphQL {} clasificada como {}", operationName, isPublic ? "pública" : "protegida");
+            return isPublic;
+
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private boolean onlyPublicFields(SelectionSet selectionSet, Map<String, FragmentDefinition> fragments, int depth) {
+        if (selectionSet == null || depth > MAX_FRAGMENT_DEPTH) {
+            return false;
+        }
+
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field field) {
+                if (!"__typename".equals(field.getName()) && !publicRootFields.contains(field.getName())) {
+                    return false;
+                }
+            } else if (selection instanceof InlineFragment inlineFragment) {
+                if (!onlyPublicFields(inlineFragment.getSelectionSet(), fragments, depth + 1)) {
+                    return false;
+                }
+            } else if (selection instanceof FragmentSpread spread) {
+                FragmentDefinition fragment = fragments.get(spread.getName());
+                if (fragment == null || !onlyPublicFields(fragment.getSelectionSet(), fragments, depth + 1)) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Request con el body ya leído, para que GraphQL lo pueda volver a leer
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return input.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.graphql_profile_service.config;
+
+import graphql.execution.ExecutionContext;
+import graphql.normalized.ExecutableNormalizedField;
+import graphql.normalized.ExecutableNormalizedOperation;
+import graphql.normalized.ExecutableNormalizedOperationFactory;
+import graphql.schema.GraphQLAppliedDirective;
+import graphql.schema.GraphQLAppliedDirectiveArgument;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLSchema;
+
+/**
+ * Análisis estático del costo y la profundidad de una operación GraphQL
+ *
+ * Se calcula sobre el documento ya validado, antes de ejecutar ningún campo.
+ * Cada campo cuesta su peso más el costo de sus hijos multiplicado por el
+ * tamaño esperado de la lista; los pesos salen de la directiva @cost de
+ * schema.graphqls (sin directiva: peso 1, multiplicador 1):
+ *
+ *   directive @cost(weight: Int!, multiplier: Int = 1) on FIELD_DEFINITION
+ *
+ * Se recorre la operación normalizada (fragmentos ya expandidos), así que los
+ * alias y los fragmentos se cuentan una vez por aparición: diez alias de
+ * getUserPreferences cuestan diez veces más que uno, y un fragmento usado en
+ * dos lugares se cuenta dos veces. Los campos de introspección (__schema,
+ * __type, __typename) no cuentan.
+ */
+public final class QueryCostAnalyzer {
+
+    public static final String COST_DIRECTIVE = "cost";
+
+    private static final int DEFAULT_WEIGHT = 1;
+    private static final int DEFAULT_MULTIPLIER = 1;
+
+    private QueryCostAnalyzer() {
+    }
+
+    /**
+     * Costo y profundidad máxima de la operación seleccionada
+     */
+    public static QueryCost analyze(ExecutionContext executionContext) {
+        GraphQLSchema schema = executionContext.getGraphQLSchema();
+        ExecutableNormalizedOperation operation = ExecutableNormalizedOperationFactory
+                .createExecutableNormalizedOperation(schema, executionContext.getOperationDefinition(),
+                        executionContext.getFragmentsByName(), executionContext.getCoercedVariables());
+
+        long cost = 0;
+        int[] maxDepth = { 0 };
+        for (ExecutableNormalizedField field : operation.getTopLevelFields()) {
+            cost = saturatedAdd(cost, cost(schema, field, maxDepth));
+        }
+        return new QueryCost(cost, maxDepth[0]);
+    }
+
+    /**
+     * Costo de un campo con todos sus hijos; la introspección no cuenta
+     */
+    private static long cost(GraphQLSchema schema, ExecutableNormalizedField field, int[] maxDepth) {
+        if (field.getName().startsWith("__")) {
+            return 0;
+        }
+        maxDepth[0] = Math.max(maxDepth[0], field.getLevel());
+
+        long childCost = 0;
+        for (ExecutableNormalizedField child : field.getChildren()) {
+            childCost = saturatedAdd(childCost, cost(schema, child, maxDepth));
+        }
+
+        // En tipos abstractos el mismo campo puede resolver a varias definiciones: la más cara
+        long cost = 0;
+        for (GraphQLFieldDefinition fieldDefinition : field.getFieldDefinitions(schema)) {
+            cost = Math.max(cost, fieldCost(fieldDefinition, childCost));
+        }
+        return cost;
+    }
+
+    private static long fieldCost(GraphQLFieldDefinition fieldDefinition, long childCost) {
+        int weight = DEFAULT_WEIGHT;
+        int multiplier = DEFAULT_MULTIPLIER;
+
+        GraphQLAppliedDirective cost = fieldDefinition.getAppliedDirective(COST_DIRECTIVE);
+        if (cost != null) {
+            weight = intArgument(cost, "weight", DEFAULT_WEIGHT);
+            multiplier = intArgument(cost, "multiplier", DEFAULT_MULTIPLIER);
+        }
+
+        long children = childCost > Long.MAX_VALUE / Math.max(multiplier, 1)
+                ? Long.MAX_VALUE
+                : childCost * multiplier;
+        return saturatedAdd(weight, children);
+    }
+
+    private static int intArgument(GraphQLAppliedDirective directive, String name, int defaultValue) {
+        GraphQLAppliedDirectiveArgument argument = directive.getArgument(name);
+        return argument != null && argument.getValue() instanceof Number value ? value.intValue() : defaultValue;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        return ((a ^ sum) & (b ^ sum)) < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Resultado del análisis
+     *
+     * @param cost  Costo estimado de la operación
+     * @param depth Profundidad máxima de selección
+     */
+    public record QueryCost(long cost, int depth) {
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.graphql_profile_service.config;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import graphql.ErrorClassification;
+import graphql.ExecutionResult;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Query Cost Configuration
+ * Control de admisión por costo y profundidad en /graphql
+ *
+ * Antes de ejecutar ningún campo se calcula el costo estático de la operación
+ * (QueryCostAnalyzer, pesos de la directiva @cost de schema.graphqls; los campos
+ * que van a user-service o a Spotify pesan más) y se rechaza si:
+ *
+ * 1. Supera graphql.cost.max-per-operation (COST_LIMIT_EXCEEDED)
+ * 2. Supera graphql.cost.max-depth (DEPTH_LIMIT_EXCEEDED)
+ * 3. El cliente (usuario autenticado o IP) agotó su presupuesto de costo por
+ *    minuto (COST_RATE_LIMITED, con retryAfterSeconds en extensions): un solo
+ *    cliente no puede agotar las cuotas de user-service ni de Spotify
+ *
+ * La IP de un cliente anónimo es la del request después de aplicar
+ * X-Forwarded-For (server.forward-headers-strategy=native): detrás del proxy
+ * de Render, sin eso, todos los clientes públicos compartirían un presupuesto.
+ *
+ * Métricas: graphql.operation.cost y graphql.operation.depth (tags operation =
+ * query | mutation | subscription, outcome = accepted | rejected) y
+ * graphql.operation.rejected (tag reason)
+ */
+@Configuration
+@Slf4j
+public class QueryCostConfig {
+
+    static final String CLIENT_KEY = QueryCostConfig.class.getName() + ".client";
+
+    private static final ErrorClassification COST_LIMIT_EXCEEDED = ErrorClassification.errorClassification(
+            "COST_LIMIT_EXCEEDED");
+    private static final ErrorClassification DEPTH_LIMIT_EXCEEDED = ErrorClassification.errorClassification(
+            "DEPTH_LIMIT_EXCEEDED");
+    private static final ErrorClassification COST_RATE_LIMITED = ErrorClassification.errorClassification(
+            "COST_RATE_LIMITED");
+
+    // Costo máximo de una operación (0 = sin límite)
+    @Value("${graphql.cost.max-per-operation:1000}")
+    private long maxCostPerOperation;
+
+    // Profundidad máxima de selección (0 = sin límite)
+    @Value("${graphql.cost.max-depth:10}")
+    private int maxDepth;
+
+    // Costo que puede gastar cada cliente por minuto; también es la ráfaga máxima (0 = sin límite)
+    @Value("${graphql.cost.client-budget-per-minute:20000}")
+    private long clientBudgetPerMinute;
+
+    // Clientes distintos que se recuerdan (los inactivos se descartan)
+    @Value("${graphql.cost.client-cache-size:10000}")
+    private long clientCacheSize;
+
+    /**
+     * Identifica al cliente de la operación: usuario autenticado o, si no hay, la IP
+     * (la del cliente real: Tomcat ya aplicó X-Forwarded-For de los proxies internos)
+     */
+    @Bean
+    public WebGraphQlInterceptor queryCostClientInterceptor() {
+        return (request, chain) -> {
+            String client = clientOf(SecurityContextHolder.getContext().getAuthentication(),
+                    request.getRemoteAddress());
+            if (client == null) {
+                return chain.next(request);
+            }
+
+            request.configureExecutionInput((input, builder) -> builder
+                    .graphQLContext(Map.of(CLIENT_KEY, client))
+                    .build());
+            return chain.next(request);
+        };
+    }
+
+    /**
+     * Calcula el costo al empezar la operación (después de validar, antes de ejecutar)
+     * y la aborta si no entra en los límites
+     */
+    @Bean
+    public SimplePerformantInstrumentation queryCostInstrumentation(MeterRegistry meterRegistry) {
+        Cache<String, CostBudget> budgets = Caffeine.newBuilder()
+                .maximumSize(clientCacheSize)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+
+        return new SimplePerformantInstrumentation() {
+            @Override
+            public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+                    InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+                ExecutionContext executionContext = parameters.getExecutionContext();
+                String operation = executionContext.getOperationDefinition().getOperation().name()
+                        .toLowerCase(Locale.ROOT);
+                QueryCostAnalyzer.QueryCost queryCost = QueryCostAnalyzer.analyze(executionContext);
+
+                GraphQLError rejection = admit(executionContext, queryCost, budgets);
+                record(meterRegistry, operation, queryCost, rejection == null ? "accepted" : "rejected");
+
+                if (rejection != null) {
+                    meterRegistry.counter("graphql.operation.rejected",
+                            "reason", rejection.getErrorType().toString()).increment();
+                    log.warn("🚫 Operación GraphQL rechazada ({}): costo={}, profundidad={}, cliente={}",
+                            rejection.getErrorType(), queryCost.cost(), queryCost.depth(),
+                            executionContext.getGraphQLContext().get(CLIENT_KEY));
+                    throw new AbortExecutionException(List.of(rejection));
+                }
+
+                log.debug("Operación GraphQL admitida: costo={}, profundidad={}", queryCost.cost(),
+                        queryCost.depth());
+                return super.beginExecuteOperation(parameters, state);
+            }
+        };
+    }
+
+    private GraphQLError admit(ExecutionContext executionContext, QueryCostAnalyzer.QueryCost queryCost,
+            Cache<String, CostBudget> budgets) {
+        if (maxDepth > 0 && queryCost.depth() > maxDepth) {
+            return error(DEPTH_LIMIT_EXCEEDED, "Query depth " + queryCost.depth()
+                    + " exceeds the maximum of " + maxDepth,
+                    Map.of("depth", queryCost.depth(), "maxDepth", maxDepth));
+        }
+
+        if (maxCostPerOperation > 0 && queryCost.cost() > maxCostPerOperation) {
+            return error(COST_LIMIT_EXCEEDED, "Query cost " + queryCost.cost()
+                    + " exceeds the maximum of " + maxCostPerOperation,
+                    Map.of("cost", queryCost.cost(), "maxCost", maxCostPerOperation));
+        }
+
+        String client = executionContext.getGraphQLContext().get(CLIENT_KEY);
+        if (clientBudgetPerMinute > 0 && client != null) {
+            CostBudget budget = budgets.get(client, key -> new CostBudget(clientBudgetPerMinute));
+            long retryAfterSeconds = budget.tryAcquire(queryCost.cost(), System.nanoTime());
+            if (retryAfterSeconds > 0) {
+                return error(COST_RATE_LIMITED, "Query cost budget exhausted, retry later",
+                        Map.of("cost", queryCost.cost(), "retryAfterSeconds", retryAfterSeconds));
+            }
+        }
+
+        return null;
+    }
+
+    private static GraphQLError error(ErrorClassification classification, String message,
+            Map<String, Object> extensions) {
+        return GraphqlErrorBuilder.newError()
+                .message(message)
+                .errorType(classification)
+                .extensions(extensions)
+                .build();
+    }
+
+    private static void record(MeterRegistry meterRegistry, String operation,
+            QueryCostAnalyzer.QueryCost queryCost, String outcome) {
+        DistributionSummary.builder("graphql.operation.cost")
+                .description("Costo estático de las operaciones GraphQL")
+                .tags("operation", operation, "outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry)
+                .record(queryCost.cost());
+        DistributionSummary.builder("graphql.operation.depth")
+                .description("Profundidad de selección de las operaciones GraphQL")
+                .tags("operation", operation, "outcome", outcome)
+                .register(meterRegistry)
+                .record(queryCost.depth());
+    }
+
+    private static String clientOf(Authentication authentication, InetSocketAddress remoteAddress) {
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        if (remoteAddress != null && remoteAddress.getAddress() != null) {
+            return "ip:" + remoteAddress.getAddress().getHostAddress();
+        }
+        return null;
+    }
+
+    /**
+     * Token bucket de costo por cliente: se llena a budgetPerMinute por minuto,
+     * con capacidad budgetPerMinute. Una operación más cara que el presupuesto
+     * entero solo pasa con el bucket lleno (y lo deja en negativo)
+     */
+    static class CostBudget {
+
+        private static final double NANOS_PER_MINUTE = 60_000_000_000.0;
+
+        private final long capacity;
+        private double available;
+        private long lastRefillNanos;
+
+        CostBudget(long budgetPerMinute) {
+            this.capacity = budgetPerMinute;
+            this.available = budgetPerMinute;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * Descuenta el costo si hay saldo; si no, devuelve en cuántos segundos habrá
+         *
+         * @return 0 si se admitió, o los segundos a esperar
+         */
+        synchronized long tryAcquire(long cost, long nowNanos) {
+            // Hilos que leyeron el reloj antes de tomar el lock pueden llegar con un instante anterior
+            long elapsedNanos = Math.max(0, nowNanos - lastRefillNanos);
+            available = Math.min(capacity, available + elapsedNanos * capacity / NANOS_PER_MINUTE);
+            lastRefillNanos = Math.max(lastRefillNanos, nowNanos);
+
+            double needed = Math.min(cost, capacity);
+            if (available >= needed) {
+                available -= cost;
+                return 0;
+            }
+
+            double missing = needed - available;
+            return Math.max(1, (long) Math.ceil(missing / capacity * 60));
+        }
+    }
+}
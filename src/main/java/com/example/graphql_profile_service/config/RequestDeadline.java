@@ -0,0 +1,146 @@
+package com.example.graphql_profile_service.config;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Deadline de una operación GraphQL (instante a partir del cual nadie espera la respuesta)
+ *
+ * RequestDeadlineFilter lo crea al llegar el request y lo guarda como atributo;
+ * DeadlineConfig lo pasa al contexto de GraphQL y lo activa en cada data fetcher.
+ * Los clientes salientes (user-service, Spotify) y las transacciones JPA usan
+ * el tiempo restante como timeout. Los hilos de pools propios (hedging, lotes)
+ * lo reciben con call().
+ */
+public final class RequestDeadline {
+
+    /**
+     * Atributo del request HTTP con el deadline
+     */
+    public static final String ATTRIBUTE = RequestDeadline.class.getName();
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Deadline a partir de ahora
+     */
+    public static RequestDeadline after(Duration timeout) {
+        return new RequestDeadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    /**
+     * Deadline activo en el hilo actual (o del request HTTP en curso), null si no hay
+     */
+    public static RequestDeadline current() {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline != null) {
+            return deadline;
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                ? (RequestDeadline) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+    }
+
+    /**
+     * Acota un timeout al tiempo restante del deadline activo (si hay)
+     *
+     * @param timeout Timeout propio de la operación
+     * @return El menor entre timeout y el tiempo restante (puede ser cero)
+     */
+    public static Duration cap(Duration timeout) {
+        RequestDeadline deadline = current();
+        if (deadline == null) {
+            return timeout;
+        }
+
+        Duration remaining = deadline.remaining();
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /**
+     * Falla si el deadline activo ya venció (antes de empezar trabajo que no llegaría a tiempo)
+     *
+     * @param operation Nombre de la operación, para el mensaje de error
+     * @throws DeadlineExceededException si el deadline venció
+     */
+    public static void check(String operation) {
+        RequestDeadline deadline = current();
+        if (deadline != null && deadline.isExpired()) {
+            throw new DeadlineExceededException("Deadline exceeded before " + operation);
+        }
+    }
+
+    /**
+     * Tiempo restante (cero si ya venció)
+     */
+    public Duration remaining() {
+        long remaining = deadlineNanos - System.nanoTime();
+        return remaining > 0 ? Duration.ofNanos(remaining) : Duration.ZERO;
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Ejecuta la llamada con este deadline activo en el hilo actual
+     */
+    public <T> T call(Supplier<T> call) {
+        RequestDeadline previous = bind();
+
+        try {
+            return call.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Igual que call(), para llamadas con excepciones checked (data fetchers)
+     */
+    public <T> T callChecked(Callable<T> call) throws Exception {
+        RequestDeadline previous = bind();
+
+        try {
+            return call.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    private RequestDeadline bind() {
+        RequestDeadline previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    private static void restore(RequestDeadline previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * El deadline venció antes de terminar (o de empezar) la operación
+     */
+    public static class DeadlineExceededException extends RuntimeException {
+
+        public DeadlineExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.graphql_profile_service.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asigna un deadline a cada request de /graphql
+ *
+ * El cliente puede pedir un timeout con un header (milisegundos, o una
+ * duración como "500ms" / "3s"); si no lo manda se usa el de configuración.
+ * Nunca supera el máximo configurado. Corre antes de Spring Security, así la
+ * autenticación también consume el presupuesto.
+ *
+ * No es un @Component: DeadlineConfig lo registra solo para /graphql
+ */
+@Slf4j
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private final String headerName;
+    private final Duration defaultTimeout;
+    private final Duration maxTimeout;
+
+    public RequestDeadlineFilter(String headerName, Duration defaultTimeout, Duration maxTimeout) {
+        this.headerName = headerName;
+        this.defaultTimeout = defaultTimeout;
+        this.maxTimeout = maxTimeout;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        request.setAttribute(RequestDeadline.ATTRIBUTE, RequestDeadline.after(timeoutFor(request)));
+        filterChain.doFilter(request, response);
+    }
+
+    private Duration timeoutFor(HttpServletRequest request) {
+        String header = request.getHeader(headerName);
+        if (header == null || header.isBlank()) {
+            return defaultTimeout;
+        }
+
+        try {
+            Duration requested = DurationStyle.detectAndParse(header.trim(), ChronoUnit.MILLIS);
+            if (requested.isNegative() || requested.isZero()) {
+                return defaultTimeout;
+            }
+            return requested.compareTo(maxTimeout) > 0 ? maxTimeout : requested;
+
+        } catch (IllegalArgumentException e) {
+            log.debug("Header {} inválido: {}", headerName, header);
+            return defaultTimeout;
+        }
+    }
+}
@@ -1,13 +1,49 @@
 package com.example.graphql_profile_service.config;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.client5.http.io.LeaseRequest;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+
 /**
  * RestTemplate Configuration
  * Configura dos clientes REST:
@@ -16,26 +52,126 @@ import org.springframework.web.client.RestTemplate;
  * 
  * SOLUCIÓN: En Render, USER_SERVICE_URL es una URL completa (https://...)
  * que NO debe pasar por el LoadBalancer de Eureka
+ *
+ * POOL HTTP: ambos RestTemplate comparten un Apache HttpClient 5 con pool de
+ * conexiones (límite total y por ruta), keep-alive acotado, desalojo de
+ * conexiones inactivas y timeouts estrictos de conexión, lectura, espera del
+ * pool y total por request. Así las llamadas a user-service reutilizan la
+ * conexión TCP/TLS en vez de pagar un handshake por request.
+ *
+ * Métricas: httpcomponents.httpclient.pool.* (conexiones, pendientes) y
+ * http.client.pool.lease (tiempo esperando una conexión del pool)
+ *
+ * BALANCEO: con Eureka, las instancias de user-service se eligen por latencia
+ * y requests en curso (LatencyAwareLoadBalancer), no por round-robin
  */
 @Configuration
+@LoadBalancerClient(name = "user-service", configuration = UserServiceLoadBalancerConfiguration.class)
 public class RestTemplateConfig {
 
     @Value("${user-service.url:http://user-service}")
     private String userServiceUrl;
 
+    @Value("${http-client.pool.max-total:50}")
+    private int maxTotal;
+
+    @Value("${http-client.pool.max-per-route:20}")
+    private int maxPerRoute;
+
+    // Tiempo máximo para establecer la conexión TCP/TLS
+    @Value("${http-client.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    // Tiempo máximo sin recibir datos del socket
+    @Value("${http-client.read-timeout:5s}")
+    private Duration readTimeout;
+
+    // Tiempo máximo esperando una conexión libre del pool
+    @Value("${http-client.connection-request-timeout:1s}")
+    private Duration connectionRequestTimeout;
+
+    // Tiempo total máximo de un request (pool + conexión + respuesta); pasado este tiempo se aborta
+    @Value("${http-client.total-timeout:8s}")
+    private Duration totalTimeout;
+
+    // Keep-alive máximo de una conexión reutilizable (aunque el servidor anuncie más)
+    @Value("${http-client.keep-alive:30s}")
+    private Duration keepAlive;
+
+    // Las conexiones inactivas más de este tiempo se cierran
+    @Value("${http-client.idle-eviction:20s}")
+    private Duration idleEviction;
+
+    // Revalida una conexión del pool si estuvo inactiva más de este tiempo
+    @Value("${http-client.validate-after-inactivity:2s}")
+    private Duration validateAfterInactivity;
+
+    /**
+     * Pool de conexiones compartido por ambos RestTemplate
+     * Registra las métricas del pool y el tiempo de espera de cada lease
+     */
+    @Bean
+    public PoolingHttpClientConnectionManager httpClientConnectionManager(MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = new TimedConnectionManager(meterRegistry);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setSocketTimeout(Timeout.of(readTimeout))
+                .setValidateAfterInactivity(TimeValue.of(validateAfterInactivity))
+                .build());
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "rest-template")
+                .bindTo(meterRegistry);
+
+        return connectionManager;
+    }
+
+    /**
+     * Apache HttpClient con pool, keep-alive acotado y desalojo de conexiones inactivas
+     */
+    @Bean
+    public CloseableHttpClient pooledHttpClient(PoolingHttpClientConnectionManager connectionManager) {
+        TimeValue maxKeepAlive = TimeValue.of(keepAlive);
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                        .setResponseTimeout(Timeout.of(readTimeout))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue announced = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return TimeValue.isPositive(announced) && announced.compareTo(maxKeepAlive) < 0
+                            ? announced
+                            : maxKeepAlive;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleEviction))
+                .build();
+    }
+
     /**
      * RestTemplate SIN LoadBalancer (PRIMARIO)
      * Usado cuando USER_SERVICE_URL es una URL completa (https://...)
      * 
      * En Render: https://microservicio-user-ecp9.onrender.com
-     * En localhost: Fallback al loadBalancedRestTemplate
+     * En localhost: Fallback al loadBalancedRestTemplate (si USER_SERVICE_URL
+     * es un nombre de servicio de Eureka, p. ej. http://user-service)
      * 
      * @Primary = Este será el RestTemplate por defecto
      */
     @Bean
     @Primary
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient pooledHttpClient,
+            @LoadBalanced RestTemplate loadBalancedRestTemplate) {
+        if (isServiceName(userServiceUrl)) {
+            return loadBalancedRestTemplate;
+        }
+
+        return builder
+                .requestFactory(() -> new DeadlineRequestFactory(pooledHttpClient, totalTimeout))
+                .build();
     }
 
     /**
@@ -49,7 +185,204 @@ public class RestTemplateConfig {
      */
     @Bean
     @LoadBalanced
-    public RestTemplate loadBalancedRestTemplate() {
-        return new RestTemplate();
+    public RestTemplate loadBalancedRestTemplate(CloseableHttpClient pooledHttpClient) {
+        return new RestTemplate(new DeadlineRequestFactory(pooledHttpClient, totalTimeout));
+    }
+
+    /**
+     * true si la URL apunta a un nombre de servicio (sin dominio) y no a un host real
+     */
+    private static boolean isServiceName(String url) {
+        String host = URI.create(url).getHost();
+        return host != null && !host.contains(".") && !"localhost".equalsIgnoreCase(host);
+    }
+
+    /**
+     * Pool de conexiones que mide cuánto espera cada request por una conexión
+     */
+    private static class TimedConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final MeterRegistry meterRegistry;
+
+        TimedConnectionManager(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public LeaseRequest lease(String id, HttpRoute route, Timeout requestTimeout, Object state) {
+            LeaseRequest leaseRequest = super.lease(id, route, requestTimeout, state);
+
+            return new LeaseRequest() {
+                @Override
+                public ConnectionEndpoint get(Timeout timeout)
+                        throws InterruptedException, ExecutionException, TimeoutException {
+                    long startNanos = System.nanoTime();
+                    String outcome = "failure";
+
+                    try {
+                        ConnectionEndpoint endpoint = leaseRequest.get(timeout);
+                        outcome = "success";
+                        return endpoint;
+
+                    } finally {
+                        Timer.builder("http.client.pool.lease")
+                                .description("Tiempo esperando una conexión del pool HTTP")
+                                .tag("outcome", outcome)
+                                .register(meterRegistry)
+                                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return leaseRequest.cancel();
+                }
+            };
+        }
+    }
+
+    /**
+     * Request factory que aborta cada request al superar el timeout total
+     * (el cliente clásico solo acota conexión y lectura por separado)
+     *
+     * Si el hilo tiene un RequestDeadline activo, el timeout total se acota al
+     * tiempo que le queda; con el deadline vencido el request ni se envía
+     *
+     * La tarea de cancelación se descarta al cerrar la respuesta (o si el
+     * request falla), así el timer no guarda una entrada por request durante
+     * todo el timeout
+     */
+    static class DeadlineRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+        private static final ScheduledThreadPoolExecutor DEADLINE_TIMER = createDeadlineTimer();
+
+        // Tarea de cancelación programada en postProcessHttpRequest, para createRequest
+        private static final ThreadLocal<ScheduledFuture<?>> PENDING_CANCELLATION = new ThreadLocal<>();
+
+        private final Duration totalTimeout;
+
+        DeadlineRequestFactory(CloseableHttpClient httpClient, Duration totalTimeout) {
+            super(httpClient);
+            this.totalTimeout = totalTimeout;
+        }
+
+        @Override
+        protected void postProcessHttpRequest(ClassicHttpRequest request) {
+            long timeoutMillis = RequestDeadline.cap(totalTimeout).toMillis();
+            if (timeoutMillis <= 0) {
+                throw new RequestDeadline.DeadlineExceededException(
+                        "Deadline exceeded before " + request.getMethod() + " " + request.getRequestUri());
+            }
+
+            if (request instanceof Cancellable cancellable) {
+                PENDING_CANCELLATION.set(
+                        DEADLINE_TIMER.schedule(cancellable::cancel, timeoutMillis, TimeUnit.MILLISECONDS));
+                HttpCancellationScope.register(cancellable);
+            }
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            try {
+                ClientHttpRequest request = super.createRequest(uri, httpMethod);
+                ScheduledFuture<?> cancellation = PENDING_CANCELLATION.get();
+                return cancellation != null ? new DeadlineRequest(request, cancellation) : request;
+            } catch (IOException | RuntimeException e) {
+                ScheduledFuture<?> cancellation = PENDING_CANCELLATION.get();
+                if (cancellation != null) {
+                    cancellation.cancel(false);
+                }
+                throw e;
+            } finally {
+                PENDING_CANCELLATION.remove();
+            }
+        }
+
+        private static ScheduledThreadPoolExecutor createDeadlineTimer() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "http-client-deadline");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Las tareas descartadas salen de la cola en el momento, no al vencer
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+
+    /**
+     * Request que descarta la cancelación programada cuando termina
+     */
+    private record DeadlineRequest(ClientHttpRequest delegate, ScheduledFuture<?> cancellation)
+            implements ClientHttpRequest {
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            try {
+                return new DeadlineResponse(delegate.execute(), cancellation);
+            } catch (IOException | RuntimeException e) {
+                cancellation.cancel(false);
+                throw e;
+            }
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return delegate.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return delegate.getURI();
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return delegate.getAttributes();
+        }
+    }
+
+    /**
+     * Respuesta que descarta la cancelación programada al cerrarse
+     * (mientras se lee el body el timeout total sigue vigente)
+     */
+    private record DeadlineResponse(ClientHttpResponse delegate, ScheduledFuture<?> cancellation)
+            implements ClientHttpResponse {
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public void close() {
+            cancellation.cancel(false);
+            delegate.close();
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,19 @@
 package com.example.graphql_profile_service.config;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -12,9 +23,16 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import com.example.graphql_profile_service.service.CustomUserDetailsService;
+import com.example.graphql_profile_service.service.JwtService;
+import com.example.graphql_profile_service.service.PersistedQueryStore;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 
 import static org.springframework.security.config.Customizer.withDefaults;
@@ -25,6 +43,12 @@ import static org.springframework.security.config.Customizer.withDefaults;
  * 
  * ACTUALIZADO: GraphQL ahora requiere autenticación HTTP Basic Auth
  * Las credenciales se validan contra user-service mediante REST
+ * 
+ * OPCIONAL: con security.jwt.enabled=true también acepta tokens JWT
+ * (POST /api/v1/auth/token) verificados localmente en cada request
+ * 
+ * Las operaciones que solo consultan campos públicos (getAllGenres,
+ * searchGenres) van por una cadena separada sin autenticación
  */
 @Configuration
 @EnableWebSecurity
@@ -33,12 +57,96 @@ import static org.springframework.security.config.Customizer.withDefaults;
 public class SecurityConfig {
 
     private final CustomUserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
+
+    // Solo existe con security.jwt.enabled=true
+    private final ObjectProvider<JwtService> jwtService;
+
+    // TTL de las credenciales ya verificadas con BCrypt
+    @Value("${security.credential-cache.ttl:5m}")
+    private Duration credentialCacheTtl;
+
+    @Value("${security.credential-cache.maximum-size:10000}")
+    private long credentialCacheMaximumSize;
+
+    // Campos raíz de Query que no requieren autenticación
+    @Value("${graphql.public-root-fields:getAllGenres,searchGenres}")
+    private List<String> publicRootFields;
+
+    // Body máximo que se inspecciona para clasificar la operación
+    @Value("${graphql.public-operations.max-body-size:16384}")
+    private int publicMaxBodySize;
+
+    // Secreto compartido con user-service para los endpoints internos (vacío = cerrados)
+    @Value("${security.internal.token:}")
+    private String internalToken;
+
+    @Value("${security.internal.header:X-Internal-Token}")
+    private String internalHeader;
+
+    /**
+     * Cadena para los endpoints internos (/api/v1/internal/**, invalidación de cachés)
+     * Solo user-service, autenticado con el secreto compartido: ni públicos
+     * ni accesibles con credenciales de usuario
+     */
+    @Bean
+    @Order(0)
+    public SecurityFilterChain internalFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/api/v1/internal/**")
+                .csrf(csrf -> csrf.disable())
+                .authorizeHttpRequests(auth -> auth
+                        .anyRequest().hasAuthority(InternalTokenAuthenticationFilter.ROLE_INTERNAL))
+                .addFilterBefore(new InternalTokenAuthenticationFilter(internalHeader, internalToken),
+                        BasicAuthenticationFilter.class)
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        return http.build();
+    }
+
+    /**
+     * Cadena para operaciones GraphQL que solo tocan campos raíz públicos
+     * (getAllGenres, searchGenres): sin HTTP Basic ni JWT, así no pagan
+     * BCrypt ni la llamada a user-service. Las marca PublicGraphQLOperationFilter
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain publicGraphQLFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(PublicGraphQLOperationFilter.PUBLIC_OPERATION)
+                .csrf(csrf -> csrf.disable())
+                .cors(withDefaults())
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+
+        return http.build();
+    }
+
+    /**
+     * Clasifica las operaciones GraphQL antes de Spring Security
+     * (orden menor que el del filtro de Spring Security)
+     */
+    @Bean
+    public FilterRegistrationBean<PublicGraphQLOperationFilter> publicGraphQLOperationFilter(ObjectMapper objectMapper,
+            PersistedQueryStore persistedQueryStore) {
+        FilterRegistrationBean<PublicGraphQLOperationFilter> registration = new FilterRegistrationBean<>(
+                new PublicGraphQLOperationFilter(objectMapper, Set.copyOf(publicRootFields), publicMaxBodySize,
+                        persistedQueryStore::find));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 2);
+        registration.addUrlPatterns("/graphql");
+        return registration;
+    }
 
     /**
      * Configura la cadena de filtros de seguridad
      * GraphQL requiere autenticación HTTP Basic
      */
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
                 // Deshabilitar CSRF para APIs GraphQL
@@ -59,6 +167,9 @@ public class SecurityConfig {
                         // ============= ACTUATOR =============
                         .requestMatchers("/actuator/**").permitAll()
 
+                        // ============= LOGIN POR TOKEN (modo JWT opcional) =============
+                        .requestMatchers("/api/v1/auth/**").permitAll()
+
                         // ============= OTRAS RUTAS =============
                         .anyRequest().authenticated())
 
@@ -69,19 +180,32 @@ public class SecurityConfig {
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS));
 
+        // Modo token opcional: "Authorization: Bearer" se verifica localmente,
+        // HTTP Basic sigue disponible por compatibilidad
+        jwtService.ifAvailable(service -> http
+                .addFilterBefore(new JwtAuthenticationFilter(service), BasicAuthenticationFilter.class));
+
         return http.build();
     }
 
     /**
-     * Configura el proveedor de autenticación DAO
-     * Usa CustomUserDetailsService para validar credenciales contra user-service
+     * Configura el proveedor de autenticación
+     * DaoAuthenticationProvider valida credenciales contra user-service (BCrypt);
+     * CachingAuthenticationProvider memoriza las credenciales ya verificadas
+     * para no repetir BCrypt en cada request del mismo cliente
      */
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
-        return authProvider;
+
+        return new CachingAuthenticationProvider(
+                authProvider,
+                userDetailsService,
+                credentialCacheTtl,
+                credentialCacheMaximumSize,
+                meterRegistry);
     }
 
     /**
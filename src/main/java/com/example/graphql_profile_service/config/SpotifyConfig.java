@@ -0,0 +1,36 @@
+package com.example.graphql_profile_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import se.michaelthelin.spotify.SpotifyApi;
+
+/**
+ * Spotify API Configuration
+ * Configura un único cliente de Spotify compartido por toda la aplicación
+ * 
+ * El cliente NO guarda el access token: cada request se construye con el
+ * token vigente de SpotifyTokenManager, así el bean es seguro entre hilos
+ */
+@Configuration
+public class SpotifyConfig {
+
+    @Value("${spotify.client.id}")
+    private String clientId;
+
+    @Value("${spotify.client.secret}")
+    private String clientSecret;
+
+    /**
+     * Cliente de Spotify Web API con las credenciales de la aplicación
+     * (Client Credentials Flow)
+     */
+    @Bean
+    public SpotifyApi spotifyApi() {
+        return new SpotifyApi.Builder()
+                .setClientId(clientId)
+                .setClientSecret(clientSecret)
+                .build();
+    }
+}
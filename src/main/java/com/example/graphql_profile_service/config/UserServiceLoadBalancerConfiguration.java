@@ -0,0 +1,39 @@
+package com.example.graphql_profile_service.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuración del LoadBalancer para user-service (contexto hijo por cliente)
+ * Reemplaza el round-robin por defecto con LatencyAwareLoadBalancer
+ *
+ * Sin @Configuration a propósito: se registra solo con @LoadBalancerClient
+ * en RestTemplateConfig, para que el component scan no la aplique a todos
+ * los clientes.
+ */
+public class UserServiceLoadBalancerConfiguration {
+
+    /**
+     * Declarado con su tipo concreto para que BlockingLoadBalancerClient lo
+     * encuentre también como LoadBalancerLifecycle del cliente
+     */
+    @Bean
+    public LatencyAwareLoadBalancer latencyAwareLoadBalancer(Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            @Value("${user-service.load-balancer.decay:10s}") Duration decay,
+            @Value("${user-service.load-balancer.default-latency:100ms}") Duration defaultLatency,
+            @Value("${user-service.load-balancer.failure-threshold:5}") int failureThreshold,
+            @Value("${user-service.load-balancer.ejection-duration:30s}") Duration ejectionDuration) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+
+        return new LatencyAwareLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId,
+                new LatencyAwareLoadBalancer.Settings(decay, defaultLatency, failureThreshold, ejectionDuration));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.graphql_profile_service.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.graphql_profile_service.service.CustomUserDetailsService;
+import com.example.graphql_profile_service.service.SecurityUtils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Endpoints INTERNOS de invalidación de cachés
+ * 
+ * Los llama user-service cuando cambia un password o se bloquea/deshabilita
+ * una cuenta, para que el cambio aplique de inmediato y no al vencer el TTL.
+ * Requieren el secreto compartido security.internal.token en el header
+ * X-Internal-Token (ver SecurityConfig.internalFilterChain): vaciar las
+ * cachés a voluntad mandaría cada login de vuelta a user-service
+ */
+@RestController
+@RequestMapping("/api/v1/internal/cache")
+@RequiredArgsConstructor
+@Slf4j
+public class InternalCacheController {
+
+    private final CustomUserDetailsService userDetailsService;
+    private final SecurityUtils securityUtils;
+
+    /**
+     * Invalida el principal cacheado de un usuario
+     */
+    @DeleteMapping("/principals/{email}")
+    public ResponseEntity<Void> evictPrincipal(@PathVariable String email) {
+        log.info("🔗 Invalidación interna de principal: {}", email);
+        userDetailsService.evictUser(email);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Invalida todos los principals cacheados
+     */
+    @DeleteMapping("/principals")
+    public ResponseEntity<Void> evictAllPrincipals() {
+        log.info("🔗 Invalidación interna de todos los principals");
+        userDetailsService.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Invalida el email cacheado de un usuario (usado por los owner checks)
+     */
+    @DeleteMapping("/users/{userId}")
+    public ResponseEntity<Void> evictUser(@PathVariable Integer userId) {
+        log.info("🔗 Invalidación interna de usuario: {}", userId);
+        securityUtils.evictUserEmail(userId);
+        return ResponseEntity.noContent().build();
+    }
+}
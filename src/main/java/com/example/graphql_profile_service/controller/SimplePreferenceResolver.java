@@ -3,27 +3,40 @@ package com.example.graphql_profile_service.controller;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import org.dataloader.DataLoader;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
+import com.example.graphql_profile_service.config.DataLoaderConfig.FavoriteArtistsKey;
+import com.example.graphql_profile_service.config.DataLoaderConfig.UserPreferenceEntry;
+import com.example.graphql_profile_service.dto.ArtistDTO;
 import com.example.graphql_profile_service.model.MusicGenre;
 import com.example.graphql_profile_service.model.Profile;
 import com.example.graphql_profile_service.model.UserPreference;
 import com.example.graphql_profile_service.repository.MusicGenreRepository;
 import com.example.graphql_profile_service.repository.ProfileRepository;
 import com.example.graphql_profile_service.repository.UserPreferenceRepository;
+import com.example.graphql_profile_service.service.PreferenceFetchPlan;
 import com.example.graphql_profile_service.service.SecurityUtils;
 
+import graphql.schema.DataFetchingFieldSelectionSet;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Simple GraphQL Resolver for Preferences
  * Resolvers simplificados que coinciden con schema.graphqls
+ *
+ * Las lecturas usan los DataLoaders de DataLoaderConfig: varios alias de
+ * getUserPreferences en una misma operación se resuelven con una consulta
+ * por entidad, no una por alias
  */
 @Controller
 @RequiredArgsConstructor
@@ -41,32 +54,63 @@ public class SimplePreferenceResolver {
 
     /**
      * Query: getUserPreferences
-     * Obtiene las preferencias de un usuario
+     * Obtiene las preferencias de un usuario (perfil y preferencias en lote)
      */
     @QueryMapping
     @PreAuthorize("isAuthenticated()")
-    public PreferenceDTO getUserPreferences(@Argument Integer userId) {
+    public CompletableFuture<PreferenceDTO> getUserPreferences(
+            @Argument Integer userId,
+            DataLoader<Integer, UserPreferenceEntry> preferencesByUserId) {
         log.info("🔍 GraphQL Query: getUserPreferences(userId: {})", userId);
 
         // Validar permisos
         securityUtils.validateUserOwnership(userId);
 
-        // Buscar perfil
-        Profile profile = profileRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Profile not found for user: " + userId));
+        return preferencesByUserId.load(userId).thenApply(entry -> {
+            if (entry == null || entry.profile() == null) {
+                throw new RuntimeException("Profile not found for user: " + userId);
+            }
 
-        // Buscar preferencias
-        UserPreference pref = preferenceRepository
-                .findByProfileProfileId(profile.getProfileId())
-                .orElse(null);
+            if (entry.preference() == null) {
+                log.warn("No preferences found for userId: {}", userId);
+                return null;
+            }
 
-        if (pref == null) {
-            log.warn("No preferences found for userId: {}", userId);
-            return null;
-        }
+            // Mapear a DTO
+            return mapToPreferenceDTO(entry.preference(), userId);
+        });
+    }
 
-        // Mapear a DTO
-        return mapToPreferenceDTO(pref, userId);
+    /**
+     * Preference.genres: géneros favoritos (tabla favorite_genres), en lote por perfil
+     */
+    @SchemaMapping(typeName = "Preference")
+    public CompletableFuture<List<GenreDTO>> genres(
+            PreferenceDTO preference,
+            DataLoader<Integer, List<MusicGenre>> favoriteGenresByProfileId) {
+        return favoriteGenresByProfileId.load(preference.getProfileId())
+                .thenApply(genres -> genres == null
+                        ? List.<GenreDTO>of()
+                        : genres.stream().map(this::mapToGenreDTO).toList());
+    }
+
+    /**
+     * Preference.artists: artistas favoritos (tabla favorite_artists) con datos
+     * del catálogo/Spotify, en lote por perfil
+     *
+     * Si la consulta solo pide spotifyId, el loader no va a Spotify
+     * (el nivel de detalle va en la clave)
+     */
+    @SchemaMapping(typeName = "Preference")
+    public CompletableFuture<List<ArtistDTO>> artists(
+            PreferenceDTO preference,
+            DataFetchingFieldSelectionSet selectionSet,
+            DataLoader<FavoriteArtistsKey, List<ArtistDTO>> favoriteArtistsByProfileId) {
+        boolean details = PreferenceFetchPlan.selectsArtistDetails(selectionSet, "*");
+        log.debug("Fetch plan Preference.artists(profileId: {}): details={}", preference.getProfileId(), details);
+
+        return favoriteArtistsByProfileId.load(new FavoriteArtistsKey(preference.getProfileId(), details))
+                .thenApply(artists -> artists != null ? artists : List.of());
     }
 
     /**
@@ -214,6 +258,7 @@ public class SimplePreferenceResolver {
         return PreferenceDTO.builder()
                 .id(pref.getUserPreferenceId())
                 .userId(userId)
+                .profileId(pref.getProfile().getProfileId())
                 .favoriteGenres(splitString(pref.getFavoriteGenres()))
                 .favoriteCities(splitString(pref.getFavoriteCities()))
                 .favoriteArtists(splitString(pref.getFavoriteArtists()))
@@ -246,6 +291,7 @@ public class SimplePreferenceResolver {
     public static class PreferenceDTO {
         private Integer id;
         private Integer userId;
+        private Integer profileId; // No expuesto: clave de los DataLoaders de favoritos
         private List<String> favoriteGenres;
         private List<String> favoriteCities;
         private List<String> favoriteArtists;
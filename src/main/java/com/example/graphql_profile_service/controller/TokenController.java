@@ -0,0 +1,66 @@
+package com.example.graphql_profile_service.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.graphql_profile_service.dto.LoginRequestDTO;
+import com.example.graphql_profile_service.dto.TokenResponseDTO;
+import com.example.graphql_profile_service.dto.UserProfileDTO;
+import com.example.graphql_profile_service.service.JwtService;
+import com.example.graphql_profile_service.service.UserServiceClient;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Login: intercambia email y password por un token JWT de vida corta
+ * 
+ * Solo existe si security.jwt.enabled=true. Las credenciales se validan una
+ * vez (mismo AuthenticationManager que HTTP Basic); después el cliente
+ * envía "Authorization: Bearer <token>" y cada request se verifica localmente
+ */
+@RestController
+@RequestMapping("/api/v1/auth")
+@ConditionalOnProperty(name = "security.jwt.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class TokenController {
+
+    private final AuthenticationManager authenticationManager;
+    private final UserServiceClient userServiceClient;
+    private final JwtService jwtService;
+
+    /**
+     * Emite un token JWT con userId, email y roles
+     */
+    @PostMapping("/token")
+    public ResponseEntity<TokenResponseDTO> issueToken(@RequestBody LoginRequestDTO request) {
+        log.info("🔐 Solicitud de token JWT para: {}", request.getEmail());
+
+        try {
+            authenticationManager.authenticate(UsernamePasswordAuthenticationToken
+                    .unauthenticated(request.getEmail(), request.getPassword()));
+        } catch (AuthenticationException e) {
+            log.warn("❌ Credenciales inválidas al solicitar token: {}", request.getEmail());
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        // userId y roles vigentes para los claims del token
+        UserProfileDTO user = userServiceClient.getUserByEmail(request.getEmail());
+
+        return ResponseEntity.ok(TokenResponseDTO.builder()
+                .accessToken(jwtService.generateToken(user))
+                .tokenType("Bearer")
+                .expiresIn(jwtService.getExpiration().toSeconds())
+                .userId(user.getUserId())
+                .build());
+    }
+}
@@ -8,8 +8,11 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 
 import com.example.graphql_profile_service.dto.*;
+import com.example.graphql_profile_service.service.PreferenceFetchPlan;
 import com.example.graphql_profile_service.service.PreferenceService;
 
+import graphql.schema.DataFetchingFieldSelectionSet;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -42,19 +45,17 @@ public class UserPreferenceController_DISABLED {
 
     /**
      * Query: userPreferences
-     * Obtiene las preferencias del usuario con listas opcionales
+     * Obtiene las preferencias del usuario cargando solo los campos seleccionados
      */
     // @QueryMapping
     @PreAuthorize("isAuthenticated()")
     public UserPreferencesDTO userPreferences(
             @Argument Integer userId,
-            @Argument(name = "includeFullLists") Boolean includeFullLists) {
+            DataFetchingFieldSelectionSet selectionSet) {
 
-        log.info("🔍 GraphQL Query: userPreferences(userId: {}, includeFullLists: {})",
-                userId, includeFullLists);
+        log.info("🔍 GraphQL Query: userPreferences(userId: {})", userId);
 
-        boolean includeLists = includeFullLists != null ? includeFullLists : false;
-        return preferenceService.getUserPreferences(userId, includeLists);
+        return preferenceService.getUserPreferences(userId, PreferenceFetchPlan.from(selectionSet));
     }
 
     /**
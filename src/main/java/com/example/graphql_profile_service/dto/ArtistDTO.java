@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -18,4 +19,5 @@ public class ArtistDTO {
     private String imageUrl;
     private String externalUrl;
     private Integer followers;
+    private LocalDateTime fetchedAt; // No expuesto: cuándo se obtuvo de Spotify (refreshed_at del catálogo)
 }
@@ -0,0 +1,22 @@
+package com.example.graphql_profile_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Artista del catálogo candidato a renovarse desde Spotify
+ * Incluye en cuántos perfiles es favorito (para decidir su nivel de popularidad)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArtistRefreshCandidateDTO {
+    private String spotifyId;
+    private LocalDateTime refreshedAt;
+    private Long favoritedBy;
+}
@@ -0,0 +1,28 @@
+package com.example.graphql_profile_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fila de artista favorito unida (LEFT JOIN) con el catálogo local de artistas
+ * Los campos del catálogo son null si el artista aún no está en la tabla artists
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FavoriteArtistRowDTO {
+    private Integer profileId;
+    private String spotifyId;
+    private String name;
+    private String genres;
+    private Integer popularity;
+    private String imageUrl;
+    private String externalUrl;
+    private Integer followers;
+    private LocalDateTime refreshedAt;
+}
@@ -0,0 +1,18 @@
+package com.example.graphql_profile_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para solicitar un token JWT con email y password
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoginRequestDTO {
+    private String email;
+    private String password;
+}
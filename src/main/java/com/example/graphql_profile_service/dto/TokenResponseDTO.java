@@ -0,0 +1,20 @@
+package com.example.graphql_profile_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de respuesta con el token JWT emitido
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenResponseDTO {
+    private String accessToken;
+    private String tokenType;
+    private Long expiresIn; // segundos
+    private Integer userId;
+}
@@ -0,0 +1,22 @@
+package com.example.graphql_profile_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para una página de cambios de usuarios desde user-service
+ * Respuesta de GET /api/v1/users/internal/changes?since={watermark}&limit={n}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChangesDTO {
+    private List<UserProfileDTO> users; // Usuarios modificados después del watermark, en orden
+    private Long watermark; // Secuencia del último cambio incluido (próximo "since")
+    private Boolean hasMore; // true si quedan cambios después de esta página
+}
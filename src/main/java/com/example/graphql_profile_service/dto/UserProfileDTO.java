@@ -35,4 +35,8 @@ public class UserProfileDTO {
     private AccountStatusDTO accountStatus;
     private String createdAt;
     private String updatedAt;
+
+    // Solo en el feed de cambios (GET /api/v1/users/internal/changes):
+    // true = el usuario se eliminó en user-service (tombstone, puede venir sin email)
+    private Boolean deleted;
 }
\ No newline at end of file
@@ -1,39 +1,53 @@
-// package com.example.rockstadiumgraphql.model;
+package com.example.graphql_profile_service.model;
 
-// import java.util.List;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 
-// import jakarta.persistence.CascadeType;
-// import jakarta.persistence.Column;
-// import jakarta.persistence.Entity;
-// import jakarta.persistence.GeneratedValue;
-// import jakarta.persistence.GenerationType;
-// import jakarta.persistence.Id;
-// import jakarta.persistence.OneToMany;
-// import jakarta.persistence.Table;
-// import lombok.AllArgsConstructor;
-// import lombok.Builder;
-// import lombok.Data;
-// import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
 
-// @Data
-// @NoArgsConstructor
-// @AllArgsConstructor
-// @Builder
-// @Entity
-// @Table(name = "artists")
-// public class Artist {
-    
-//     @Id
-//     @GeneratedValue(strategy = GenerationType.IDENTITY)
-//     @Column(name = "artist_id", nullable = false)
-//     private Integer artistId;
-    
-//     @Column(name = "name", nullable = false, length = 255)
-//     private String name;
-    
-//     @Column(name = "spotify_id", length = 100, unique = true)
-//     private String spotifyId;
-    
-//     @OneToMany(mappedBy = "artist", cascade = CascadeType.ALL)
-//     private List<FavoriteArtist> favoriteArtists;
-// }
\ No newline at end of file
+/**
+ * Artist entity - Catálogo local de artistas
+ * Copia de los metadatos de Spotify compartida por todas las instancias
+ * Spotify solo se consulta para completar faltantes y renovar filas viejas
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "artists")
+public class Artist {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "artist_id", nullable = false)
+    private Integer artistId;
+    
+    @Column(name = "spotify_id", nullable = false, length = 100, unique = true)
+    private String spotifyId;
+    
+    @Column(name = "name", nullable = false, length = 255)
+    private String name;
+    
+    @Column(name = "genres", columnDefinition = "TEXT")
+    private String genres; // "rock,hard rock,metal"
+    
+    @Column(name = "popularity")
+    private Integer popularity;
+    
+    @Column(name = "image_url", length = 500)
+    private String imageUrl;
+    
+    @Column(name = "external_url", length = 500)
+    private String externalUrl;
+    
+    @Column(name = "followers")
+    private Integer followers;
+    
+    // Última vez que los datos se obtuvieron de Spotify
+    @Column(name = "refreshed_at")
+    private LocalDateTime refreshedAt;
+}
@@ -0,0 +1,34 @@
+package com.example.graphql_profile_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * PersistedQuery entity - Texto de una query GraphQL registrada por su hash
+ * Permite a los clientes (automatic persisted queries) mandar solo el SHA-256
+ * Compartida por todas las instancias: sobrevive a reinicios y a la caché en memoria
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "persisted_queries")
+public class PersistedQuery {
+    
+    // SHA-256 (hex) del texto de la query
+    @Id
+    @Column(name = "sha256_hash", nullable = false, length = 64)
+    private String sha256Hash;
+    
+    @Column(name = "query", nullable = false, columnDefinition = "TEXT")
+    private String query;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
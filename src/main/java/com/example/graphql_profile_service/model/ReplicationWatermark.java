@@ -0,0 +1,34 @@
+package com.example.graphql_profile_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ReplicationWatermark entity - Posición de una sincronización incremental
+ * Guarda hasta qué cambio (secuencia de user-service) ya se aplicó y cuándo
+ * quedó al día por última vez (compartido por todas las instancias)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "replication_watermarks")
+public class ReplicationWatermark {
+    
+    @Id
+    @Column(name = "stream_name", nullable = false, length = 50)
+    private String streamName;
+    
+    @Column(name = "watermark", nullable = false)
+    private Long watermark;
+    
+    // Última vez que el feed respondió sin más páginas (null = nunca estuvo al día)
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
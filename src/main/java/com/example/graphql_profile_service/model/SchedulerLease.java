@@ -0,0 +1,34 @@
+package com.example.graphql_profile_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * SchedulerLease entity - Lease de una tarea programada entre instancias
+ * Solo la instancia dueña del lease (hasta expires_at) ejecuta la tarea
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+    
+    @Id
+    @Column(name = "name", nullable = false, length = 50)
+    private String name;
+    
+    // Instancia que tiene el lease
+    @Column(name = "owner", nullable = false, length = 100)
+    private String owner;
+    
+    // Hora de la base de datos en la que vence si no se renueva
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
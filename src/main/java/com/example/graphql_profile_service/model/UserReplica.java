@@ -0,0 +1,74 @@
+package com.example.graphql_profile_service.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * UserReplica entity - Réplica local de usuarios de user-service
+ * Solo los campos que necesita este servicio (sin password)
+ * Se mantiene con sincronización incremental (UserReplicaSyncScheduler)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "user_replicas")
+public class UserReplica {
+    
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+    
+    // Único: findByEmail devuelve un solo usuario (ver UserReplicaService.applyChanges)
+    @Column(name = "email", nullable = false, length = 255, unique = true)
+    private String email;
+    
+    @Column(name = "user_type", length = 50)
+    private String userType;
+    
+    @Column(name = "roles", columnDefinition = "TEXT")
+    private String roles; // "ROLE_USER,ROLE_ADMIN"
+    
+    // Estado de la cuenta
+    @Column(name = "enabled")
+    private Boolean enabled;
+    
+    @Column(name = "account_non_expired")
+    private Boolean accountNonExpired;
+    
+    @Column(name = "account_non_locked")
+    private Boolean accountNonLocked;
+    
+    @Column(name = "credentials_non_expired")
+    private Boolean credentialsNonExpired;
+    
+    // Perfil y ubicación
+    @Column(name = "profile_id")
+    private Integer profileId;
+    
+    @Column(name = "profile_name", length = 100)
+    private String profileName;
+    
+    @Column(name = "municipality", length = 100)
+    private String municipality;
+    
+    @Column(name = "state", length = 100)
+    private String state;
+    
+    @Column(name = "country", length = 100)
+    private String country;
+    
+    // updatedAt del usuario en user-service
+    @Column(name = "source_updated_at", length = 50)
+    private String sourceUpdatedAt;
+    
+    // Última vez que la fila se aplicó desde user-service
+    @Column(name = "synced_at")
+    private LocalDateTime syncedAt;
+}
@@ -1,13 +1,50 @@
-// package com.example.rockstadiumgraphql.repository;
+package com.example.graphql_profile_service.repository;
 
-// import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import com.example.graphql_profile_service.dto.ArtistRefreshCandidateDTO;
+import com.example.graphql_profile_service.model.*;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
-// import org.springframework.data.jpa.repository.JpaRepository;
-// import org.springframework.stereotype.Repository;
-
-// import com.example.rockstadiumgraphql.model.Artist;
-
-// @Repository
-// public interface ArtistRepository extends JpaRepository<Artist, Integer> {
-//     Optional<Artist> findBySpotifyId(String spotifyId);
-// }
\ No newline at end of file
+@Repository
+public interface ArtistRepository extends JpaRepository<Artist, Integer> {
+    
+    // Buscar artista por Spotify ID
+    Optional<Artist> findBySpotifyId(String spotifyId);
+    
+    // Buscar varios artistas por Spotify ID
+    List<Artist> findBySpotifyIdIn(Collection<String> spotifyIds);
+    
+    // Artistas renovados antes de la fecha indicada, con su número de perfiles que los tienen como favorito
+    @Query("SELECT new com.example.graphql_profile_service.dto.ArtistRefreshCandidateDTO("
+            + "a.spotifyId, a.refreshedAt, COUNT(fa)) "
+            + "FROM Artist a LEFT JOIN FavoriteArtist fa ON fa.spotifyId = a.spotifyId "
+            + "WHERE a.refreshedAt IS NULL OR a.refreshedAt < :refreshedBefore "
+            + "GROUP BY a.spotifyId, a.refreshedAt")
+    List<ArtistRefreshCandidateDTO> findRefreshCandidates(@Param("refreshedBefore") LocalDateTime refreshedBefore);
+    
+    // Insertar o actualizar (upsert) un artista del catálogo
+    // Seguro entre instancias: usa la restricción única de spotify_id
+    // No reemplaza una fila renovada después de refreshedAt (datos más nuevos)
+    @Modifying
+    @Query(value = "INSERT INTO artists (spotify_id, name, genres, popularity, image_url, external_url, followers, refreshed_at) "
+            + "VALUES (:spotifyId, :name, :genres, :popularity, :imageUrl, :externalUrl, :followers, :refreshedAt) "
+            + "ON CONFLICT (spotify_id) DO UPDATE SET name = EXCLUDED.name, genres = EXCLUDED.genres, "
+            + "popularity = EXCLUDED.popularity, image_url = EXCLUDED.image_url, external_url = EXCLUDED.external_url, "
+            + "followers = EXCLUDED.followers, refreshed_at = EXCLUDED.refreshed_at "
+            + "WHERE artists.refreshed_at IS NULL OR artists.refreshed_at < EXCLUDED.refreshed_at", nativeQuery = true)
+    void upsert(@Param("spotifyId") String spotifyId,
+            @Param("name") String name,
+            @Param("genres") String genres,
+            @Param("popularity") Integer popularity,
+            @Param("imageUrl") String imageUrl,
+            @Param("externalUrl") String externalUrl,
+            @Param("followers") Integer followers,
+            @Param("refreshedAt") LocalDateTime refreshedAt);
+}
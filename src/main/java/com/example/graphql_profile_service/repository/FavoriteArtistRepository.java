@@ -3,8 +3,12 @@ package com.example.graphql_profile_service.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.example.graphql_profile_service.dto.FavoriteArtistRowDTO;
 import com.example.graphql_profile_service.model.*;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +21,28 @@ public interface FavoriteArtistRepository extends JpaRepository<FavoriteArtist,
     // Obtener artistas favoritos con paginación
     Page<FavoriteArtist> findByProfileProfileId(Integer profileId, Pageable pageable);
     
+    // Obtener artistas favoritos unidos con el catálogo local (una sola consulta SQL)
+    @Query("SELECT new com.example.graphql_profile_service.dto.FavoriteArtistRowDTO("
+            + "fa.profile.profileId, fa.spotifyId, a.name, a.genres, a.popularity, a.imageUrl, a.externalUrl, a.followers, a.refreshedAt) "
+            + "FROM FavoriteArtist fa LEFT JOIN Artist a ON a.spotifyId = fa.spotifyId "
+            + "WHERE fa.profile.profileId = :profileId ORDER BY fa.favoriteArtistId")
+    List<FavoriteArtistRowDTO> findWithCatalogByProfileId(@Param("profileId") Integer profileId);
+    
+    // Obtener artistas favoritos unidos con el catálogo local, con paginación
+    @Query(value = "SELECT new com.example.graphql_profile_service.dto.FavoriteArtistRowDTO("
+            + "fa.profile.profileId, fa.spotifyId, a.name, a.genres, a.popularity, a.imageUrl, a.externalUrl, a.followers, a.refreshedAt) "
+            + "FROM FavoriteArtist fa LEFT JOIN Artist a ON a.spotifyId = fa.spotifyId "
+            + "WHERE fa.profile.profileId = :profileId ORDER BY fa.favoriteArtistId",
+            countQuery = "SELECT COUNT(fa) FROM FavoriteArtist fa WHERE fa.profile.profileId = :profileId")
+    Page<FavoriteArtistRowDTO> findWithCatalogByProfileId(@Param("profileId") Integer profileId, Pageable pageable);
+    
+    // Artistas favoritos de varios perfiles unidos con el catálogo local (DataLoader: una sola consulta)
+    @Query("SELECT new com.example.graphql_profile_service.dto.FavoriteArtistRowDTO("
+            + "fa.profile.profileId, fa.spotifyId, a.name, a.genres, a.popularity, a.imageUrl, a.externalUrl, a.followers, a.refreshedAt) "
+            + "FROM FavoriteArtist fa LEFT JOIN Artist a ON a.spotifyId = fa.spotifyId "
+            + "WHERE fa.profile.profileId IN :profileIds ORDER BY fa.favoriteArtistId")
+    List<FavoriteArtistRowDTO> findWithCatalogByProfileIdIn(@Param("profileIds") Collection<Integer> profileIds);
+    
     // Verificar si un artista ya es favorito
     boolean existsByProfileProfileIdAndSpotifyId(Integer profileId, String spotifyId);
     
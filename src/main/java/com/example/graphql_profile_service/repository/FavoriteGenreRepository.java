@@ -3,8 +3,11 @@ package com.example.graphql_profile_service.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.graphql_profile_service.model.*;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +17,11 @@ public interface FavoriteGenreRepository extends JpaRepository<FavoriteGenre, In
     // Obtener todos los géneros favoritos de un perfil
     List<FavoriteGenre> findByProfileProfileId(Integer profileId);
     
+    // Géneros favoritos de varios perfiles con su género (DataLoader: una sola consulta)
+    @Query("SELECT fg FROM FavoriteGenre fg JOIN FETCH fg.musicGenre "
+            + "WHERE fg.profile.profileId IN :profileIds ORDER BY fg.favoriteGenreId")
+    List<FavoriteGenre> findWithGenreByProfileIdIn(@Param("profileIds") Collection<Integer> profileIds);
+    
     // Obtener géneros favoritos con paginación
     Page<FavoriteGenre> findByProfileProfileId(Integer profileId, Pageable pageable);
     
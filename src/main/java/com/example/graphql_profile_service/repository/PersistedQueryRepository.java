@@ -0,0 +1,20 @@
+package com.example.graphql_profile_service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.graphql_profile_service.model.*;
+import java.time.LocalDateTime;
+
+@Repository
+public interface PersistedQueryRepository extends JpaRepository<PersistedQuery, String> {
+    
+    // Borra las queries registradas antes de cutoff (vencidas); devuelve cuántas
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PersistedQuery p WHERE p.createdAt IS NULL OR p.createdAt < :cutoff")
+    int deleteRegisteredBefore(@Param("cutoff") LocalDateTime cutoff);
+}
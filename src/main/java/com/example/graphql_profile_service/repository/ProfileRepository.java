@@ -5,6 +5,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import com.example.graphql_profile_service.model.*;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,9 @@ public interface ProfileRepository extends JpaRepository<Profile, Integer> {
     // Buscar perfil por user ID
     Optional<Profile> findByUserId(Integer userId);
     
+    // Buscar perfiles de varios usuarios (DataLoader: una sola consulta)
+    List<Profile> findByUserIdIn(Collection<Integer> userIds);
+    
     // Verificar si existe perfil para un usuario
     boolean existsByUserId(Integer userId);
 }
\ No newline at end of file
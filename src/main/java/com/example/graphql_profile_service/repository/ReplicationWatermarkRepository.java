@@ -0,0 +1,25 @@
+package com.example.graphql_profile_service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import com.example.graphql_profile_service.model.*;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ReplicationWatermarkRepository extends JpaRepository<ReplicationWatermark, String> {
+    
+    // Avanza el watermark solo hacia adelante (0 = no existe o ya estaba en ese punto o más adelante)
+    // Bloquea la fila hasta el fin de la transacción: otro lote concurrente espera y luego no avanza
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReplicationWatermark w SET w.watermark = :watermark "
+            + "WHERE w.streamName = :streamName AND w.watermark < :watermark")
+    int advance(@Param("streamName") String streamName, @Param("watermark") long watermark);
+    
+    // Marca el stream como al día (updated_at); 0 = todavía no existe la fila
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE ReplicationWatermark w SET w.updatedAt = :caughtUpAt WHERE w.streamName = :streamName")
+    int markCaughtUp(@Param("streamName") String streamName, @Param("caughtUpAt") LocalDateTime caughtUpAt);
+}
@@ -0,0 +1,24 @@
+package com.example.graphql_profile_service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.graphql_profile_service.model.*;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+    
+    // Toma o renueva el lease si está libre, vencido o ya es de este owner (1 = lo tiene)
+    // Usa la hora de la base de datos: no depende del reloj de cada instancia
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO scheduler_leases (name, owner, expires_at) "
+            + "VALUES (:name, :owner, LOCALTIMESTAMP + make_interval(secs => :ttlSeconds)) "
+            + "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at "
+            + "WHERE scheduler_leases.owner = EXCLUDED.owner OR scheduler_leases.expires_at < LOCALTIMESTAMP",
+            nativeQuery = true)
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("ttlSeconds") long ttlSeconds);
+}
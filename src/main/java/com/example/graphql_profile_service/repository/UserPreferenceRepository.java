@@ -5,6 +5,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import com.example.graphql_profile_service.model.*;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,9 @@ public interface UserPreferenceRepository extends JpaRepository<UserPreference,
     // Buscar preferencias por profile ID
     Optional<UserPreference> findByProfileProfileId(Integer profileId);
     
+    // Buscar preferencias de varios perfiles (DataLoader: una sola consulta)
+    List<UserPreference> findByProfileProfileIdIn(Collection<Integer> profileIds);
+    
     // Verificar si existen preferencias para un perfil
     boolean existsByProfileProfileId(Integer profileId);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.graphql_profile_service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import com.example.graphql_profile_service.model.*;
+import java.util.Optional;
+
+@Repository
+public interface UserReplicaRepository extends JpaRepository<UserReplica, Integer> {
+    
+    // Buscar usuario replicado por email
+    Optional<UserReplica> findByEmail(String email);
+}
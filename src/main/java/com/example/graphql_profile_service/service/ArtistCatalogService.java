@@ -0,0 +1,246 @@
+package com.example.graphql_profile_service.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.graphql_profile_service.dto.ArtistDTO;
+import com.example.graphql_profile_service.dto.FavoriteArtistRowDTO;
+import com.example.graphql_profile_service.repository.ArtistRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Catálogo local de artistas (tabla artists)
+ *
+ * Las lecturas de favoritos vienen unidas con el catálogo en una sola consulta;
+ * Spotify solo se usa para completar artistas que faltan y renovar filas viejas.
+ * Si Spotify no responde, se sirve la fila vieja del catálogo.
+ *
+ * También cuenta las lecturas por artista, que ArtistRefreshScheduler usa para
+ * decidir con qué frecuencia renovar cada uno. Solo el líder del scheduler
+ * decae los contadores, así que la tabla tiene tamaño máximo; con
+ * artist-refresh.enabled=false no se cuenta nada.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArtistCatalogService {
+
+    private final ArtistRepository artistRepository;
+    private final SpotifyService spotifyService;
+    private final PlatformTransactionManager transactionManager;
+
+    // Edad a partir de la cual una lectura renueva la fila desde Spotify
+    // (red de seguridad: normalmente ArtistRefreshScheduler la renueva antes)
+    @Value("${artist-catalog.stale-after:7d}")
+    private Duration staleAfter;
+
+    // Sin renovación programada nadie consume los contadores
+    @Value("${artist-refresh.enabled:true}")
+    private boolean countReads;
+
+    // Artistas con contador de lecturas (desaloja los menos leídos)
+    @Value("${artist-catalog.read-counts.maximum-size:10000}")
+    private long readCountsMaximumSize;
+
+    // Lecturas por artista desde el último decaimiento
+    private Cache<String, LongAdder> readCounts;
+
+    @PostConstruct
+    void initializeReadCounts() {
+        readCounts = Caffeine.newBuilder()
+                .maximumSize(readCountsMaximumSize)
+                .build();
+    }
+
+    /**
+     * Resuelve los artistas de una lista de favoritos ya unida con el catálogo
+     *
+     * @param rows Filas de favoritos con los datos del catálogo (LEFT JOIN)
+     * @return ArtistDTOs en el mismo orden que las filas
+     */
+    public List<ArtistDTO> resolveFavorites(List<FavoriteArtistRowDTO> rows) {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(staleAfter);
+
+        if (countReads) {
+            rows.forEach(row -> readCounts.get(row.getSpotifyId(), id -> new LongAdder()).increment());
+        }
+
+        // Artistas que faltan en el catálogo o cuya fila está vieja
+        Set<String> toFetch = rows.stream()
+                .filter(row -> row.getName() == null || isStale(row.getRefreshedAt(), staleBefore))
+                .map(FavoriteArtistRowDTO::getSpotifyId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<String, ArtistDTO> fetched = fetchAndStore(toFetch);
+
+        List<ArtistDTO> artists = new ArrayList<>(rows.size());
+        for (FavoriteArtistRowDTO row : rows) {
+            ArtistDTO artist = fetched.get(row.getSpotifyId());
+            if (artist == null && row.getName() != null) {
+                // Fila del catálogo (fresca, o vieja si Spotify no respondió)
+                artist = toArtistDTO(row);
+            }
+            artists.add(artist != null ? artist : spotifyService.unknownArtist(row.getSpotifyId()));
+        }
+
+        return artists;
+    }
+
+    /**
+     * Artistas de una lista de favoritos solo con lo que ya tiene el catálogo
+     * (sin Spotify): para consultas que no piden datos de display
+     *
+     * @param rows Filas de favoritos con los datos del catálogo (LEFT JOIN)
+     * @return ArtistDTOs en el mismo orden; los que faltan en el catálogo solo traen spotifyId
+     */
+    public List<ArtistDTO> catalogFavorites(List<FavoriteArtistRowDTO> rows) {
+        return rows.stream()
+                .map(row -> row.getName() != null
+                        ? toArtistDTO(row)
+                        : ArtistDTO.builder().spotifyId(row.getSpotifyId()).build())
+                .toList();
+    }
+
+    /**
+     * Obtiene un artista desde el catálogo, o desde Spotify si falta o está viejo
+     *
+     * @param spotifyId Spotify ID del artista
+     * @return ArtistDTO (fallback "Unknown Artist" si no se pudo resolver)
+     */
+    public ArtistDTO getArtist(String spotifyId) {
+        FavoriteArtistRowDTO row = artistRepository.findBySpotifyId(spotifyId)
+                .map(artist -> FavoriteArtistRowDTO.builder()
+                        .spotifyId(artist.getSpotifyId())
+                        .name(artist.getName())
+                        .genres(artist.getGenres())
+                        .popularity(artist.getPopularity())
+                        .imageUrl(artist.getImageUrl())
+                        .externalUrl(artist.getExternalUrl())
+                        .followers(artist.getFollowers())
+                        .refreshedAt(artist.getRefreshedAt())
+                        .build())
+                .orElseGet(() -> FavoriteArtistRowDTO.builder().spotifyId(spotifyId).build());
+
+        return resolveFavorites(List.of(row)).get(0);
+    }
+
+    /**
+     * Devuelve las lecturas acumuladas por artista y las reduce a la mitad
+     * (decaimiento exponencial: las lecturas recientes pesan más)
+     *
+     * @return Mapa spotifyId -> lecturas antes del decaimiento
+     */
+    public Map<String, Long> decayReadCounts() {
+        Map<String, Long> snapshot = new HashMap<>();
+
+        readCounts.asMap().forEach((spotifyId, counter) -> {
+            long reads = counter.sumThenReset();
+            snapshot.put(spotifyId, reads);
+            if (reads / 2 > 0) {
+                counter.add(reads / 2);
+            } else {
+                readCounts.asMap().remove(spotifyId, counter);
+            }
+        });
+
+        return snapshot;
+    }
+
+    /**
+     * Guarda (upsert) artistas obtenidos de Spotify en el catálogo
+     * Transacción propia (REQUIRES_NEW): se llama también desde lecturas readOnly
+     *
+     * refreshed_at es el momento en que se obtuvo cada artista de Spotify
+     * (fetchedAt), no el de la escritura: un artista servido desde la caché en
+     * memoria puede tener horas. Una fila más nueva no se pisa con datos viejos
+     *
+     * @param artists Artistas resueltos por Spotify
+     */
+    public void saveArtists(Collection<ArtistDTO> artists) {
+        if (artists.isEmpty()) {
+            return;
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ArtistDTO artist : artists) {
+                artistRepository.upsert(
+                        artist.getSpotifyId(),
+                        artist.getName(),
+                        artist.getGenres() != null ? String.join(",", artist.getGenres()) : null,
+                        artist.getPopularity(),
+                        artist.getImageUrl(),
+                        artist.getExternalUrl(),
+                        artist.getFollowers(),
+                        artist.getFetchedAt() != null ? artist.getFetchedAt() : now);
+            }
+        });
+
+        log.debug("Catálogo de artistas actualizado: {} artista(s)", artists.size());
+    }
+
+    /**
+     * Pide a Spotify (caché en memoria + multi-get) los artistas indicados
+     * y guarda en el catálogo los que se resolvieron
+     */
+    private Map<String, ArtistDTO> fetchAndStore(Set<String> spotifyIds) {
+        if (spotifyIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, ArtistDTO> fetched = spotifyService.findArtistsByIds(spotifyIds);
+
+        if (!fetched.isEmpty()) {
+            try {
+                saveArtists(fetched.values());
+            } catch (RuntimeException e) {
+                // El catálogo es una optimización: un error al guardar no rompe la lectura
+                log.warn("No se pudo actualizar el catálogo de artistas: {}", e.getMessage());
+            }
+        }
+
+        return fetched;
+    }
+
+    private boolean isStale(LocalDateTime refreshedAt, LocalDateTime staleBefore) {
+        return refreshedAt == null || refreshedAt.isBefore(staleBefore);
+    }
+
+    private ArtistDTO toArtistDTO(FavoriteArtistRowDTO row) {
+        return ArtistDTO.builder()
+                .spotifyId(row.getSpotifyId())
+                .name(row.getName())
+                .genres(row.getGenres() != null && !row.getGenres().isEmpty()
+                        ? Arrays.asList(row.getGenres().split(","))
+                        : new ArrayList<>())
+                .popularity(row.getPopularity())
+                .imageUrl(row.getImageUrl())
+                .externalUrl(row.getExternalUrl())
+                .followers(row.getFollowers())
+                .build();
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.graphql_profile_service.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.graphql_profile_service.dto.ArtistDTO;
+import com.example.graphql_profile_service.dto.ArtistRefreshCandidateDTO;
+import com.example.graphql_profile_service.repository.ArtistRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Renovación programada del catálogo de artistas según su popularidad
+ *
+ * Cada artista se clasifica por lecturas recientes y número de perfiles que lo
+ * tienen como favorito:
+ * - HOT: se renueva cada pocas horas
+ * - WARM: diariamente
+ * - COLD (long tail): semanalmente
+ *
+ * Los artistas vencidos se encolan y se renuevan con el endpoint multi-artista
+ * en lotes de 50, respetando un presupuesto de requests por minuto.
+ *
+ * Con varias réplicas solo escanea y renueva la instancia que tiene el lease
+ * "artist-refresh" (SchedulerLeaseService): el presupuesto por minuto es
+ * global y los artistas no se renuevan una vez por réplica. Las lecturas que
+ * definen el nivel son las que recibió esa instancia.
+ *
+ * Métricas: artist.refresh.queue.depth, artist.refresh.batch.fill,
+ * artist.refresh.staleness (percentiles, segundos; solo artistas ya renovados
+ * alguna vez) y artist.refresh.never-refreshed (artistas sin refreshed_at)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ArtistRefreshScheduler {
+
+    private final ArtistRepository artistRepository;
+    private final ArtistCatalogService artistCatalogService;
+    private final SpotifyService spotifyService;
+    private final SchedulerLeaseService leaseService;
+    private final MeterRegistry meterRegistry;
+
+    // Límite de IDs por request en "Get Several Artists"
+    private static final int BATCH_SIZE = 50;
+
+    private static final String LEASE_NAME = "artist-refresh";
+
+    @Value("${artist-refresh.enabled:true}")
+    private boolean enabled;
+
+    @Value("${artist-refresh.hot.interval:4h}")
+    private Duration hotInterval;
+
+    @Value("${artist-refresh.warm.interval:24h}")
+    private Duration warmInterval;
+
+    @Value("${artist-refresh.cold.interval:7d}")
+    private Duration coldInterval;
+
+    // Umbrales de popularidad (perfiles que lo tienen como favorito / lecturas recientes)
+    @Value("${artist-refresh.hot.min-favorites:50}")
+    private long hotMinFavorites;
+
+    @Value("${artist-refresh.hot.min-reads:200}")
+    private long hotMinReads;
+
+    @Value("${artist-refresh.warm.min-favorites:5}")
+    private long warmMinFavorites;
+
+    @Value("${artist-refresh.warm.min-reads:20}")
+    private long warmMinReads;
+
+    // Presupuesto global de requests a Spotify por minuto para la renovación
+    // (global porque solo renueva la instancia con el lease)
+    @Value("${artist-refresh.max-requests-per-minute:10}")
+    private int maxRequestsPerMinute;
+
+    // Duración del lease; se renueva cada minuto, así que debe ser mayor
+    @Value("${artist-refresh.lease-ttl:3m}")
+    private Duration leaseTtl;
+
+    // true mientras esta instancia tiene el lease
+    private volatile boolean leader;
+
+    // Cola de artistas vencidos: spotifyId -> fecha de la última renovación
+    private final Map<String, LocalDateTime> queue = new LinkedHashMap<>();
+
+    private DistributionSummary batchFill;
+    private DistributionSummary staleness;
+    private Counter neverRefreshed;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("artist.refresh.queue.depth", this, scheduler -> scheduler.queueDepth())
+                .description("Artistas vencidos pendientes de renovar")
+                .register(meterRegistry);
+
+        batchFill = DistributionSummary.builder("artist.refresh.batch.fill")
+                .description("Ocupación de cada lote enviado a Spotify (0-1)")
+                .register(meterRegistry);
+
+        staleness = DistributionSummary.builder("artist.refresh.staleness")
+                .description("Antigüedad de los artistas al renovarse")
+                .baseUnit("seconds")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        neverRefreshed = Counter.builder("artist.refresh.never-refreshed")
+                .description("Artistas renovados que no tenían refreshed_at (fuera de staleness)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Busca en el catálogo los artistas vencidos según su nivel y los encola
+     * (los HOT primero, luego los más viejos)
+     */
+    @Scheduled(fixedDelayString = "${artist-refresh.scan-interval-ms:600000}",
+            initialDelayString = "${artist-refresh.initial-delay-ms:60000}")
+    public void scanDueArtists() {
+        if (!enabled || !leader) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Long> reads = artistCatalogService.decayReadCounts();
+
+        // El intervalo más corto (HOT) acota la consulta
+        List<ArtistRefreshCandidateDTO> candidates = artistRepository.findRefreshCandidates(now.minus(hotInterval));
+
+        List<ArtistRefreshCandidateDTO> due = new ArrayList<>();
+        Map<String, Tier> tiers = new LinkedHashMap<>();
+        for (ArtistRefreshCandidateDTO candidate : candidates) {
+            Tier tier = classify(candidate.getFavoritedBy(), reads.getOrDefault(candidate.getSpotifyId(), 0L));
+            Duration interval = intervalFor(tier);
+
+            if (candidate.getRefreshedAt() == null || candidate.getRefreshedAt().isBefore(now.minus(interval))) {
+                due.add(candidate);
+                tiers.put(candidate.getSpotifyId(), tier);
+            }
+        }
+
+        due.sort(Comparator
+                .comparing((ArtistRefreshCandidateDTO c) -> tiers.get(c.getSpotifyId()))
+                .thenComparing(c -> c.getRefreshedAt() != null ? c.getRefreshedAt() : LocalDateTime.MIN));
+
+        synchronized (queue) {
+            queue.clear();
+            due.forEach(candidate -> queue.put(candidate.getSpotifyId(), candidate.getRefreshedAt()));
+        }
+
+        log.info("Renovación de artistas: {} vencidos de {} candidatos", due.size(), candidates.size());
+    }
+
+    /**
+     * Renueva desde la cola tantos lotes de 50 como permita el presupuesto por minuto
+     * (antes renueva el lease; sin lease no hace nada)
+     */
+    @Scheduled(fixedRate = 60000)
+    public void refreshQueuedArtists() {
+        if (!enabled || !renewLease()) {
+            return;
+        }
+
+        for (int request = 0; request < maxRequestsPerMinute; request++) {
+            Map<String, LocalDateTime> batch = pollBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            refreshBatch(batch);
+        }
+    }
+
+    /**
+     * Toma o renueva el lease; al tomarlo escanea de inmediato (la cola de la
+     * dueña anterior se perdió) y al perderlo vacía la cola
+     *
+     * @return true si esta instancia debe renovar
+     */
+    private boolean renewLease() {
+        boolean acquired = leaseService.tryAcquire(LEASE_NAME, leaseTtl);
+
+        if (acquired && !leader) {
+            leader = true;
+            log.info("Lease {} tomado: esta instancia renueva el catálogo", LEASE_NAME);
+            scanDueArtists();
+        } else if (!acquired && leader) {
+            leader = false;
+            log.info("Lease {} perdido: la renovación sigue en otra instancia", LEASE_NAME);
+            synchronized (queue) {
+                queue.clear();
+            }
+        }
+
+        return acquired;
+    }
+
+    private void refreshBatch(Map<String, LocalDateTime> batch) {
+        batchFill.record((double) batch.size() / BATCH_SIZE);
+
+        LocalDateTime now = LocalDateTime.now();
+        batch.values().forEach(refreshedAt -> {
+            if (refreshedAt != null) {
+                staleness.record(Duration.between(refreshedAt, now).toSeconds());
+            } else {
+                neverRefreshed.increment();
+            }
+        });
+
+        try {
+            Map<String, ArtistDTO> refreshed = spotifyService.refreshArtists(batch.keySet());
+            artistCatalogService.saveArtists(refreshed.values());
+
+            log.debug("Renovados {} de {} artistas del lote", refreshed.size(), batch.size());
+
+        } catch (RuntimeException e) {
+            // El lote se vuelve a encolar en el próximo escaneo
+            log.warn("Error renovando lote de {} artistas: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private Map<String, LocalDateTime> pollBatch() {
+        Map<String, LocalDateTime> batch = new LinkedHashMap<>();
+
+        synchronized (queue) {
+            Iterator<Map.Entry<String, LocalDateTime>> iterator = queue.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < BATCH_SIZE) {
+                Map.Entry<String, LocalDateTime> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        return batch;
+    }
+
+    private int queueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    private Tier classify(Long favoritedBy, long reads) {
+        long favorites = favoritedBy != null ? favoritedBy : 0;
+
+        if (favorites >= hotMinFavorites || reads >= hotMinReads) {
+            return Tier.HOT;
+        }
+        if (favorites >= warmMinFavorites || reads >= warmMinReads) {
+            return Tier.WARM;
+        }
+        return Tier.COLD;
+    }
+
+    private Duration intervalFor(Tier tier) {
+        return switch (tier) {
+            case HOT -> hotInterval;
+            case WARM -> warmInterval;
+            case COLD -> coldInterval;
+        };
+    }
+
+    /**
+     * Nivel de popularidad (el orden define la prioridad en la cola)
+     */
+    private enum Tier {
+        HOT, WARM, COLD
+    }
+}
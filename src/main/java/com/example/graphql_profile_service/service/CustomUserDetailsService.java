@@ -1,5 +1,11 @@
 package com.example.graphql_profile_service.service;
 
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -7,7 +13,12 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import com.example.graphql_profile_service.dto.UserProfileDTO;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -17,6 +28,17 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * IMPORTANTE: Este servicio NO almacena usuarios localmente,
  * delega toda la autenticación a user-service
+ * 
+ * CACHÉ DE PRINCIPALS: el usuario (hash del password, roles y flags de estado)
+ * se guarda en memoria por email, así el tráfico autenticado de un mismo
+ * cliente no llama a user-service en cada request.
+ * - TTL máximo: security.principal-cache.ttl
+ * - Flags de estado (bloqueado, deshabilitado...): nunca más viejos que
+ *   security.principal-cache.status-max-staleness; se renuevan en segundo
+ *   plano a la mitad de ese tiempo y pasado el tope se recargan síncronamente
+ * - Invalidación explícita con evictUser/evictAll (cambio de password o
+ *   bloqueo de cuenta) y automática ante credenciales incorrectas
+ * - Métricas: cache.* con tag cache=principals
  */
 @Service
 @RequiredArgsConstructor
@@ -24,10 +46,39 @@ import lombok.extern.slf4j.Slf4j;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserServiceClient userServiceClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${security.principal-cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    // TTL máximo de un principal en caché
+    @Value("${security.principal-cache.ttl:15m}")
+    private Duration cacheTtl;
+
+    // Antigüedad máxima de los flags de estado de la cuenta
+    @Value("${security.principal-cache.status-max-staleness:2m}")
+    private Duration statusMaxStaleness;
+
+    private LoadingCache<String, CachedPrincipal> principalCache;
+
+    /**
+     * Construye la caché de principals y registra sus métricas en actuator
+     */
+    @PostConstruct
+    void initializePrincipalCache() {
+        principalCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheTtl)
+                .refreshAfterWrite(statusMaxStaleness.dividedBy(2))
+                .recordStats()
+                .build(this::fetchPrincipal);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, principalCache, "principals");
+    }
 
     /**
      * Carga un usuario por email para autenticación
-     * Llamada REST a user-service para obtener credenciales
+     * Desde la caché de principals, o con llamada REST a user-service si no está
      * 
      * @param email Email del usuario (usado como username)
      * @return UserDetails con información del usuario
@@ -35,42 +86,97 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        log.info("🔐 Loading user by email for authentication: {}", email);
+        log.debug("🔐 Loading user by email for authentication: {}", email);
 
         try {
-            // Llamar a user-service para obtener información del usuario
-            // Este endpoint interno incluye password y roles para autenticación
-            UserProfileDTO userProfile = userServiceClient.getUserByEmail(email);
-
-            log.info("✅ User loaded successfully: {}", email);
-
-            // Convertir UserProfileDTO a UserDetails de Spring Security
-            return User.builder()
-                    .username(userProfile.getEmail())
-                    .password(userProfile.getPassword()) // Password hasheado de user-service
-                    .authorities(userProfile.getRoles() != null ? userProfile.getRoles().toArray(new String[0])
-                            : new String[] {})
-                    .accountExpired(userProfile.getAccountStatus() != null &&
-                            userProfile.getAccountStatus().getAccountNonExpired() != null
-                                    ? !userProfile.getAccountStatus().getAccountNonExpired()
-                                    : false)
-                    .accountLocked(userProfile.getAccountStatus() != null &&
-                            userProfile.getAccountStatus().getAccountNonLocked() != null
-                                    ? !userProfile.getAccountStatus().getAccountNonLocked()
-                                    : false)
-                    .credentialsExpired(userProfile.getAccountStatus() != null &&
-                            userProfile.getAccountStatus().getCredentialsNonExpired() != null
-                                    ? !userProfile.getAccountStatus().getCredentialsNonExpired()
-                                    : false)
-                    .disabled(userProfile.getAccountStatus() != null &&
-                            userProfile.getAccountStatus().getEnabled() != null
-                                    ? !userProfile.getAccountStatus().getEnabled()
-                                    : false)
-                    .build();
+            CachedPrincipal cached = principalCache.get(email);
+
+            if (cached.loadedAt().isBefore(Instant.now().minus(statusMaxStaleness))) {
+                // Tope de antigüedad de los flags de estado: recarga síncrona
+                principalCache.invalidate(email);
+                cached = principalCache.get(email);
+            }
+
+            // Copia: Spring Security borra el password del principal autenticado
+            return User.withUserDetails(cached.user()).build();
 
         } catch (Exception e) {
             log.error("❌ User not found or error loading user: {}", email, e);
             throw new UsernameNotFoundException("User not found with email: " + email, e);
         }
     }
+
+    /**
+     * Invalida el principal cacheado de un usuario
+     * (cambio de password, bloqueo o deshabilitación de la cuenta)
+     * 
+     * @param email Email del usuario
+     */
+    public void evictUser(String email) {
+        principalCache.invalidate(email);
+        log.info("🗑️ Principal invalidado en caché: {}", email);
+    }
+
+    /**
+     * Invalida todos los principals cacheados
+     */
+    public void evictAll() {
+        principalCache.invalidateAll();
+        log.info("🗑️ Caché de principals vaciada");
+    }
+
+    /**
+     * Credenciales incorrectas: el password pudo cambiar en user-service,
+     * el próximo intento vuelve a consultar user-service
+     */
+    @EventListener
+    public void onBadCredentials(AuthenticationFailureBadCredentialsEvent event) {
+        principalCache.invalidate(event.getAuthentication().getName());
+    }
+
+    /**
+     * Llamada REST a user-service para obtener credenciales (loader de la caché)
+     */
+    private CachedPrincipal fetchPrincipal(String email) {
+        log.info("🔐 Loading user by email from user-service: {}", email);
+
+        // Llamar a user-service para obtener información del usuario
+        // Este endpoint interno incluye password y roles para autenticación
+        UserProfileDTO userProfile = userServiceClient.getUserByEmail(email);
+
+        log.info("✅ User loaded successfully: {}", email);
+
+        return new CachedPrincipal(toUserDetails(userProfile), Instant.now());
+    }
+
+    /**
+     * Convierte UserProfileDTO a UserDetails de Spring Security
+     */
+    private UserDetails toUserDetails(UserProfileDTO userProfile) {
+        return User.builder()
+                .username(userProfile.getEmail())
+                .password(userProfile.getPassword()) // Password hasheado de user-service
+                .authorities(userProfile.getRoles() != null ? userProfile.getRoles().toArray(new String[0])
+                        : new String[] {})
+                .accountExpired(userProfile.getAccountStatus() != null &&
+                        userProfile.getAccountStatus().getAccountNonExpired() != null
+                                ? !userProfile.getAccountStatus().getAccountNonExpired()
+                                : false)
+                .accountLocked(userProfile.getAccountStatus() != null &&
+                        userProfile.getAccountStatus().getAccountNonLocked() != null
+                                ? !userProfile.getAccountStatus().getAccountNonLocked()
+                                : false)
+                .credentialsExpired(userProfile.getAccountStatus() != null &&
+                        userProfile.getAccountStatus().getCredentialsNonExpired() != null
+                                ? !userProfile.getAccountStatus().getCredentialsNonExpired()
+                                : false)
+                .disabled(userProfile.getAccountStatus() != null &&
+                        userProfile.getAccountStatus().getEnabled() != null
+                                ? !userProfile.getAccountStatus().getEnabled()
+                                : false)
+                .build();
+    }
+
+    private record CachedPrincipal(UserDetails user, Instant loadedAt) {
+    }
 }
@@ -1,135 +1,135 @@
-// package com.example.rockstadiumgraphql.service;
-
-// import java.security.Key;
-// import java.util.Date;
-// import java.util.HashMap;
-// import java.util.Map;
-// import java.util.function.Function;
-
-// import org.springframework.beans.factory.annotation.Value;
-// import org.springframework.security.core.userdetails.UserDetails;
-// import org.springframework.stereotype.Service;
-
-// import io.jsonwebtoken.Claims;
-// import io.jsonwebtoken.Jwts;
-// import io.jsonwebtoken.SignatureAlgorithm;
-// import io.jsonwebtoken.io.Decoders;
-// import io.jsonwebtoken.security.Keys;
-// import lombok.extern.slf4j.Slf4j;
-
-// /**
-//  * Servicio para generar y validar tokens JWT
-//  * Service for generating and validating JWT tokens
-//  */
-// @Service
-// @Slf4j
-// public class JwtService {
-    
-//     @Value("${security.jwt.secret-key}")
-//     private String secretKey;
-    
-//     @Value("${security.jwt.expiration-time}")
-//     private long jwtExpiration;
-    
-//     /**
-//      * Extrae el username (email) del token
-//      * Extract username (email) from token
-//      */
-//     public String extractUsername(String token) {
-//         return extractClaim(token, Claims::getSubject);
-//     }
-    
-//     /**
-//      * Extrae un claim específico del token
-//      * Extract a specific claim from token
-//      */
-//     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-//         final Claims claims = extractAllClaims(token);
-//         return claimsResolver.apply(claims);
-//     }
-    
-//     /**
-//      * Genera un token JWT para el usuario
-//      * Generate JWT token for user
-//      */
-//     public String generateToken(UserDetails userDetails) {
-//         return generateToken(new HashMap<>(), userDetails);
-//     }
-    
-//     /**
-//      * Genera un token JWT con claims adicionales
-//      */
-//     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
-//         return buildToken(extraClaims, userDetails, jwtExpiration);
-//     }
-    
-//     /**
-//      * Obtiene el tiempo de expiración del token
-//      */
-//     public long getExpirationTime() {
-//         return jwtExpiration;
-//     }
-    
-//     /**
-//      * Construye el token JWT
-//      */
-//     private String buildToken(
-//             Map<String, Object> extraClaims,
-//             UserDetails userDetails,
-//             long expiration) {
-        
-//         return Jwts.builder()
-//                 .setClaims(extraClaims)
-//                 .setSubject(userDetails.getUsername())
-//                 .setIssuedAt(new Date(System.currentTimeMillis()))
-//                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-//                 .signWith(getSignInKey(), SignatureAlgorithm.HS256)
-//                 .compact();
-//     }
-    
-//     /**
-//      * Valida si el token es válido
-//      * Validate if token is valid
-//      */
-//     public boolean isTokenValid(String token, UserDetails userDetails) {
-//         final String username = extractUsername(token);
-//         return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-//     }
-    
-//     /**
-//      * Verifica si el token ha expirado
-//      * Check if token has expired
-//      */
-//     private boolean isTokenExpired(String token) {
-//         return extractExpiration(token).before(new Date());
-//     }
-    
-//     /**
-//      * Extrae la fecha de expiración del token
-//      * Extract expiration date from token
-//      */
-//     private Date extractExpiration(String token) {
-//         return extractClaim(token, Claims::getExpiration);
-//     }
-    
-//     /**
-//      * Extrae todos los claims del token
-//      * Extract all claims from token
-//      */
-//     private Claims extractAllClaims(String token) {
-//         return Jwts.parserBuilder()
-//                 .setSigningKey(getSignInKey())
-//                 .build()
-//                 .parseClaimsJws(token)
-//                 .getBody();
-//     }
-    
-//     /**
-//      * Obtiene la clave de firma
-//      * Get signing key
-//      */
-//     private Key getSignInKey() {
-//         byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-//         return Keys.hmacShaKeyFor(keyBytes);
-//     }
-// }
\ No newline at end of file
+package com.example.graphql_profile_service.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import com.example.graphql_profile_service.dto.UserProfileDTO;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio para generar y validar tokens JWT
+ * Service for generating and validating JWT tokens
+ *
+ * Modo opcional (security.jwt.enabled=true): el token firmado (HS256) lleva
+ * userId, email y roles, así que se verifica localmente sin llamar a
+ * user-service ni calcular BCrypt. La clave y el parser (inmutable y
+ * thread-safe) se construyen una sola vez al iniciar.
+ */
+@Service
+@ConditionalOnProperty(name = "security.jwt.enabled", havingValue = "true")
+@Slf4j
+public class JwtService {
+
+    private static final String CLAIM_USER_ID = "userId";
+    private static final String CLAIM_ROLES = "roles";
+
+    @Value("${security.jwt.secret-key}")
+    private String secretKey;
+
+    // Vida del token: corta, porque no se revalida contra user-service
+    @Value("${security.jwt.expiration:15m}")
+    private Duration expiration;
+
+    private SecretKey signingKey;
+
+    private JwtParser parser;
+
+    /**
+     * Obtiene la clave de firma y el parser (una sola vez)
+     * Get signing key and parser (once)
+     */
+    @PostConstruct
+    void initializeKeys() {
+        signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+
+        log.info("🔑 Autenticación por token JWT habilitada (expira en {}s)", expiration.toSeconds());
+    }
+
+    /**
+     * Genera un token JWT para el usuario
+     * Generate JWT token for user
+     *
+     * @param user Usuario autenticado (userId, email y roles)
+     * @return Token firmado
+     */
+    public String generateToken(UserProfileDTO user) {
+        Instant now = Instant.now();
+
+        return Jwts.builder()
+                .subject(user.getEmail())
+                .claim(CLAIM_USER_ID, user.getUserId())
+                .claim(CLAIM_ROLES, user.getRoles() != null ? new ArrayList<>(user.getRoles()) : List.of())
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(expiration)))
+                .signWith(signingKey)
+                .compact();
+    }
+
+    /**
+     * Obtiene el tiempo de expiración del token
+     */
+    public Duration getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * Valida firma y expiración del token y extrae el usuario
+     * Validate token signature and expiration and extract the user
+     *
+     * @param token Token JWT (sin el prefijo "Bearer ")
+     * @return Usuario contenido en el token
+     * @throws JwtException si el token es inválido o expiró
+     */
+    public TokenPrincipal parseToken(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Collection<?> roles = claims.get(CLAIM_ROLES, Collection.class);
+
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (roles != null) {
+            roles.forEach(role -> authorities.add(new SimpleGrantedAuthority(role.toString())));
+        }
+
+        return new TokenPrincipal(
+                userId != null ? userId.intValue() : null,
+                claims.getSubject(),
+                authorities);
+    }
+
+    /**
+     * Usuario autenticado por token (getName() devuelve el email)
+     */
+    public record TokenPrincipal(Integer userId, String email, List<GrantedAuthority> authorities)
+            implements AuthenticatedPrincipal {
+
+        @Override
+        public String getName() {
+            return email;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.graphql_profile_service.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.example.graphql_profile_service.model.PersistedQuery;
+import com.example.graphql_profile_service.repository.PersistedQueryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Almacén de queries persistidas (automatic persisted queries)
+ *
+ * Resuelve un SHA-256 al texto de la query: primero en memoria y luego en la
+ * tabla persisted_queries. Los hashes desconocidos se recuerdan un rato
+ * (caché negativa) para que un cliente que manda hashes al azar no consulte
+ * la base en cada request.
+ *
+ * Cualquier cliente (también anónimo) puede registrar queries válidas, así que
+ * la tabla está acotada: cada query vence ttl después de registrarse (el
+ * cliente la vuelve a registrar con el reintento normal de APQ) y con
+ * max-entries filas no se registran más; esas quedan solo en memoria.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PersistedQueryStore {
+
+    private final PersistedQueryRepository persistedQueryRepository;
+
+    @Value("${graphql.persisted-queries.cache-size:1000}")
+    private long cacheSize;
+
+    // Queries más largas no se registran
+    @Value("${graphql.persisted-queries.max-query-length:16384}")
+    private int maxQueryLength;
+
+    @Value("${graphql.persisted-queries.negative-ttl:1m}")
+    private Duration negativeTtl;
+
+    // Tiempo que una query registrada queda en la tabla
+    @Value("${graphql.persisted-queries.ttl:30d}")
+    private Duration ttl;
+
+    // Filas máximas de persisted_queries
+    @Value("${graphql.persisted-queries.max-entries:10000}")
+    private long maxEntries;
+
+    // Filas en la tabla: se recalcula en cada limpieza y suma los registros de esta instancia
+    private final AtomicLong storedCount = new AtomicLong();
+
+    private Cache<String, String> queries;
+    private Cache<String, Boolean> unknownHashes;
+
+    @PostConstruct
+    void initializeCaches() {
+        queries = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+
+        unknownHashes = Caffeine.newBuilder()
+                .maximumSize(cacheSize * 10)
+                .expireAfterWrite(negativeTtl)
+                .build();
+    }
+
+    /**
+     * Texto de la query registrada con este hash
+     *
+     * @param sha256Hash SHA-256 (hex) de la query
+     * @return La query, o vacío si nadie la registró
+     */
+    public Optional<String> find(String sha256Hash) {
+        String query = queries.getIfPresent(sha256Hash);
+        if (query != null) {
+            return Optional.of(query);
+        }
+
+        if (unknownHashes.getIfPresent(sha256Hash) != null) {
+            return Optional.empty();
+        }
+
+        Optional<String> stored = persistedQueryRepository.findById(sha256Hash).map(PersistedQuery::getQuery);
+        stored.ifPresentOrElse(
+                text -> queries.put(sha256Hash, text),
+                () -> unknownHashes.put(sha256Hash, Boolean.TRUE));
+        return stored;
+    }
+
+    /**
+     * Registra una query (ya validada y con el hash verificado)
+     * Otra instancia puede haberla registrado antes: no es un error
+     *
+     * @param sha256Hash SHA-256 (hex) de la query
+     * @param query      Texto de la query
+     */
+    public void save(String sha256Hash, String query) {
+        if (query.length() > maxQueryLength) {
+            log.debug("Query persistida {} demasiado larga ({} caracteres), no se registra", sha256Hash, query.length());
+            return;
+        }
+
+        queries.put(sha256Hash, query);
+        unknownHashes.invalidate(sha256Hash);
+
+        if (storedCount.get() >= maxEntries) {
+            log.debug("Tabla de queries persistidas llena ({} filas), {} queda solo en memoria",
+                    storedCount.get(), sha256Hash);
+            return;
+        }
+
+        try {
+            if (!persistedQueryRepository.existsById(sha256Hash)) {
+                persistedQueryRepository.save(PersistedQuery.builder()
+                        .sha256Hash(sha256Hash)
+                        .query(query)
+                        .createdAt(LocalDateTime.now())
+                        .build());
+                storedCount.incrementAndGet();
+                log.info("Query persistida registrada: {}", sha256Hash);
+            }
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Query persistida {} ya registrada por otra instancia", sha256Hash);
+        } catch (RuntimeException e) {
+            // La caché en memoria sigue sirviendo; el cliente la volverá a registrar si hace falta
+            log.warn("No se pudo guardar la query persistida {}: {}", sha256Hash, e.getMessage());
+        }
+    }
+
+    /**
+     * Borra las queries vencidas y recalcula cuántas filas hay
+     * (también corre al arrancar, así el límite se conoce desde el principio)
+     */
+    @Scheduled(fixedDelayString = "${graphql.persisted-queries.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        try {
+            int deleted = persistedQueryRepository.deleteRegisteredBefore(LocalDateTime.now().minus(ttl));
+            storedCount.set(persistedQueryRepository.count());
+
+            if (deleted > 0) {
+                log.info("🧹 {} queries persistidas vencidas eliminadas ({} registradas)", deleted, storedCount.get());
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron limpiar las queries persistidas: {}", e.getMessage());
+        }
+    }
+}
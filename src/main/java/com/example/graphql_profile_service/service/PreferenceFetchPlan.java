@@ -0,0 +1,53 @@
+package com.example.graphql_profile_service.service;
+
+import java.util.Set;
+
+import graphql.schema.DataFetchingFieldSelectionSet;
+import graphql.schema.SelectedField;
+
+/**
+ * Plan de carga de getUserPreferences según los campos que pidió la consulta
+ *
+ * Reemplaza al flag includeFullLists: solo se cargan las relaciones
+ * seleccionadas, Spotify solo se consulta si se pidieron campos de display
+ * del artista (no basta con spotifyId), y los COUNT solo corren si se pidieron
+ * los conteos y la lista correspondiente no se cargó.
+ *
+ * @param artists       Cargar la lista de artistas favoritos
+ * @param artistDetails Completar los artistas con datos de display (catálogo/Spotify)
+ * @param genres        Cargar la lista de géneros favoritos
+ * @param artistsCount  Devolver el conteo de artistas
+ * @param genresCount   Devolver el conteo de géneros
+ */
+public record PreferenceFetchPlan(
+        boolean artists,
+        boolean artistDetails,
+        boolean genres,
+        boolean artistsCount,
+        boolean genresCount) {
+
+    // Campos de un artista que no requieren ir al catálogo ni a Spotify
+    private static final Set<String> ARTIST_KEY_FIELDS = Set.of("spotifyId", "__typename");
+
+    /**
+     * Plan a partir de la selección de un campo de tipo UserPreferencesDTO
+     */
+    public static PreferenceFetchPlan from(DataFetchingFieldSelectionSet selectionSet) {
+        return new PreferenceFetchPlan(
+                selectionSet.contains("favoriteArtists"),
+                selectsArtistDetails(selectionSet, "favoriteArtists/*"),
+                selectionSet.contains("favoriteGenres"),
+                selectionSet.contains("favoriteArtistsCount"),
+                selectionSet.contains("favoriteGenresCount"));
+    }
+
+    /**
+     * true si la selección de artistas (glob, p. ej. "favoriteArtists/*" o "*")
+     * pide algún campo además de spotifyId
+     */
+    public static boolean selectsArtistDetails(DataFetchingFieldSelectionSet selectionSet, String artistFieldGlob) {
+        return selectionSet.getFields(artistFieldGlob).stream()
+                .map(SelectedField::getName)
+                .anyMatch(name -> !ARTIST_KEY_FIELDS.contains(name));
+    }
+}
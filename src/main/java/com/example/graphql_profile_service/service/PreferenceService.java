@@ -21,10 +21,11 @@ public interface PreferenceService {
     // ===== PREFERENCES =====
     
     /**
-     * Get user preferences with optional full lists
-     * Obtiene las preferencias del usuario con listas opcionales completas
+     * Get user preferences loading only what the fetch plan asks for
+     * Obtiene las preferencias del usuario cargando solo lo que pide el plan
+     * (ver PreferenceFetchPlan.from para armarlo desde la selección GraphQL)
      */
-    UserPreferencesDTO getUserPreferences(Integer userId, boolean includeFullLists);
+    UserPreferencesDTO getUserPreferences(Integer userId, PreferenceFetchPlan plan);
     
     /**
      * Update user preferences
@@ -9,6 +9,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.graphql_profile_service.config.RequestDeadline;
 import com.example.graphql_profile_service.dto.*;
 import com.example.graphql_profile_service.model.*;
 import com.example.graphql_profile_service.repository.*;
@@ -22,6 +23,11 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * Seguridad: Todos los métodos validan que el usuario autenticado
  * sea el propietario del recurso o tenga rol ADMIN
+ *
+ * Deadline: antes de cada paso caro (consultas, Spotify) se verifica el
+ * RequestDeadline de la operación; vencido, se corta con DeadlineExceededException.
+ * Las esperas a Spotify se acotan al tiempo restante y, si no llega, se
+ * responde solo con los datos del catálogo local
  */
 @Service
 @RequiredArgsConstructor
@@ -36,8 +42,10 @@ public class PreferenceServiceImpl implements PreferenceService {
     private final MusicGenreRepository musicGenreRepository;
     
     // Servicios externos
-    private final UserServiceClient userServiceClient;
+    private final UserProfileBatcher userProfileBatcher;
+    private final UserReplicaService userReplicaService;
     private final SpotifyService spotifyService;
+    private final ArtistCatalogService artistCatalogService;
     
     // Seguridad
     private final SecurityUtils securityUtils;
@@ -56,16 +64,18 @@ public class PreferenceServiceImpl implements PreferenceService {
         // VALIDAR PERMISOS: Solo el propietario o ADMIN pueden acceder
         securityUtils.validateUserOwnership(userId);
         
-        // COMUNICACIÓN REST INTERNA - Llamada a user-service
-        return userServiceClient.getUserProfile(userId);
+        // Réplica local si está al día; si no, COMUNICACIÓN REST INTERNA con user-service (en lote)
+        return userReplicaService.findUserProfile(userId)
+                .orElseGet(() -> userProfileBatcher.getUserProfile(userId));
     }
     
     // ===== PREFERENCES =====
     
     @Override
     @Transactional(readOnly = true)
-    public UserPreferencesDTO getUserPreferences(Integer userId, boolean includeFullLists) {
-        log.info("Obteniendo preferencias para usuario: {} (includeLists: {})", userId, includeFullLists);
+    public UserPreferencesDTO getUserPreferences(Integer userId, PreferenceFetchPlan plan) {
+        log.info("Obteniendo preferencias para usuario: {}", userId);
+        log.debug("Fetch plan getUserPreferences(userId: {}): {}", userId, plan);
 
         // VALIDAR PERMISOS: Solo el propietario o ADMIN pueden acceder
         securityUtils.validateUserOwnership(userId);
@@ -78,13 +88,7 @@ public class PreferenceServiceImpl implements PreferenceService {
                 .findByProfileProfileId(profile.getProfileId())
                 .orElseGet(() -> createDefaultPreference(profile));
 
-        if (includeFullLists) {
-            // Retornar con listas completas
-            return buildFullPreferencesDTO(profile, preference);
-        } else {
-            // Retornar solo con conteos
-            return buildSummaryPreferencesDTO(profile, preference);
-        }
+        return buildPreferencesDTO(profile, preference, plan);
     }
 
     @Override
@@ -137,16 +141,17 @@ public class PreferenceServiceImpl implements PreferenceService {
         // VALIDAR PERMISOS: Solo el propietario o ADMIN pueden acceder
         securityUtils.validateUserOwnership(userId);
 
+        RequestDeadline.check("loading favorite artists");
+
         Profile profile = getProfileByUserId(userId);
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<FavoriteArtist> favoritesPage = favoriteArtistRepository
-                .findByProfileProfileId(profile.getProfileId(), pageable);
+        // Favoritos unidos con el catálogo local de artistas (una sola consulta)
+        Page<FavoriteArtistRowDTO> favoritesPage = favoriteArtistRepository
+                .findWithCatalogByProfileId(profile.getProfileId(), pageable);
 
-        // Enriquecer con datos de Spotify
-        List<ArtistDTO> artists = favoritesPage.getContent().stream()
-                .map(fa -> spotifyService.getArtistById(fa.getSpotifyId()))
-                .collect(Collectors.toList());
+        // Spotify solo para artistas que faltan en el catálogo o están viejos
+        List<ArtistDTO> artists = artistCatalogService.resolveFavorites(favoritesPage.getContent());
 
         return ArtistPageDTO.builder()
                 .content(artists)
@@ -167,6 +172,12 @@ public class PreferenceServiceImpl implements PreferenceService {
         // VALIDAR PERMISOS: Solo el propietario o ADMIN pueden modificar
         securityUtils.validateUserOwnership(userId);
 
+        // Validar formato del Spotify ID antes de cualquier llamada externa
+        if (!spotifyService.isValidSpotifyId(spotifyId)) {
+            log.warn("Spotify ID con formato inválido: {}", spotifyId);
+            throw new RuntimeException("Invalid Spotify artist ID: " + spotifyId);
+        }
+
         Profile profile = getProfileByUserId(userId);
 
         // Verificar si ya es favorito
@@ -183,8 +194,9 @@ public class PreferenceServiceImpl implements PreferenceService {
             throw new RuntimeException("Maximum favorite artists limit reached: " + MAX_FAVORITE_ARTISTS);
         }
 
-        // Obtener información del artista desde Spotify
-        ArtistDTO artistInfo = spotifyService.getArtistById(spotifyId);
+        // Obtener información del artista (catálogo local o Spotify)
+        RequestDeadline.check("resolving artist " + spotifyId);
+        ArtistDTO artistInfo = artistCatalogService.getArtist(spotifyId);
 
         // Guardar favorito
         FavoriteArtist favorite = FavoriteArtist.builder()
@@ -216,8 +228,8 @@ public class PreferenceServiceImpl implements PreferenceService {
             throw new RuntimeException("Artist not found in favorites");
         }
 
-        // Obtener nombre antes de eliminar
-        ArtistDTO artistInfo = spotifyService.getArtistById(spotifyId);
+        // Obtener nombre antes de eliminar (catálogo local)
+        ArtistDTO artistInfo = artistCatalogService.getArtist(spotifyId);
 
         // Eliminar
         favoriteArtistRepository.deleteByProfileProfileIdAndSpotifyId(
@@ -239,6 +251,8 @@ public class PreferenceServiceImpl implements PreferenceService {
         // VALIDAR PERMISOS: Solo el propietario o ADMIN pueden acceder
         securityUtils.validateUserOwnership(userId);
 
+        RequestDeadline.check("loading favorite genres");
+
         Profile profile = getProfileByUserId(userId);
         Pageable pageable = PageRequest.of(page, size);
 
@@ -382,53 +396,56 @@ public class PreferenceServiceImpl implements PreferenceService {
     }
 
     /**
-     * Construye DTO completo de preferencias con listas
+     * Construye DTO de preferencias según el plan de carga
+     * Listas solo si se seleccionaron; conteos desde la lista si se cargó,
+     * si no con COUNT (y solo si se pidieron)
      */
-    private UserPreferencesDTO buildFullPreferencesDTO(Profile profile, UserPreference preference) {
-        List<FavoriteArtist> favoriteArtists = favoriteArtistRepository
-                .findByProfileProfileId(profile.getProfileId());
+    private UserPreferencesDTO buildPreferencesDTO(Profile profile, UserPreference preference,
+            PreferenceFetchPlan plan) {
+        Integer profileId = profile.getProfileId();
+
+        List<ArtistDTO> artists = null;
+        if (plan.artists()) {
+            RequestDeadline.check("loading favorite artists");
+            List<FavoriteArtistRowDTO> favoriteArtists = favoriteArtistRepository.findWithCatalogByProfileId(profileId);
+
+            // Catálogo local + Spotify para faltantes solo si se pidieron datos de display
+            artists = plan.artistDetails()
+                    ? artistCatalogService.resolveFavorites(favoriteArtists)
+                    : artistCatalogService.catalogFavorites(favoriteArtists);
+        }
 
-        List<FavoriteGenre> favoriteGenres = favoriteGenreRepository
-                .findByProfileProfileId(profile.getProfileId());
+        List<MusicGenreDTO> genres = null;
+        if (plan.genres()) {
+            RequestDeadline.check("loading favorite genres");
+            genres = favoriteGenreRepository.findByProfileProfileId(profileId).stream()
+                    .map(fg -> mapToMusicGenreDTO(fg.getMusicGenre()))
+                    .collect(Collectors.toList());
+        }
 
-        // Enriquecer artistas con Spotify
-        List<ArtistDTO> artists = favoriteArtists.stream()
-                .map(fa -> spotifyService.getArtistById(fa.getSpotifyId()))
-                .collect(Collectors.toList());
+        Integer artistsCount = null;
+        if (plan.artistsCount()) {
+            artistsCount = artists != null
+                    ? artists.size()
+                    : (int) favoriteArtistRepository.countByProfileProfileId(profileId);
+        }
 
-        // Mapear géneros
-        List<MusicGenreDTO> genres = favoriteGenres.stream()
-                .map(fg -> mapToMusicGenreDTO(fg.getMusicGenre()))
-                .collect(Collectors.toList());
+        Integer genresCount = null;
+        if (plan.genresCount()) {
+            genresCount = genres != null
+                    ? genres.size()
+                    : (int) favoriteGenreRepository.countByProfileProfileId(profileId);
+        }
 
         return UserPreferencesDTO.builder()
                 .userPreferenceId(preference.getUserPreferenceId())
-                .profileId(profile.getProfileId())
+                .profileId(profileId)
                 .searchRadius(preference.getSearchRadius())
                 .emailNotifications(preference.getEmailNotifications())
                 .favoriteArtists(artists)
                 .favoriteGenres(genres)
-                .favoriteArtistsCount(artists.size())
-                .favoriteGenresCount(genres.size())
-                .maxFavoriteArtists(MAX_FAVORITE_ARTISTS)
-                .maxFavoriteGenres(MAX_FAVORITE_GENRES)
-                .build();
-    }
-
-    /**
-     * Construye DTO resumen de preferencias (solo conteos)
-     */
-    private UserPreferencesDTO buildSummaryPreferencesDTO(Profile profile, UserPreference preference) {
-        long artistsCount = favoriteArtistRepository.countByProfileProfileId(profile.getProfileId());
-        long genresCount = favoriteGenreRepository.countByProfileProfileId(profile.getProfileId());
-
-        return UserPreferencesDTO.builder()
-                .userPreferenceId(preference.getUserPreferenceId())
-                .profileId(profile.getProfileId())
-                .searchRadius(preference.getSearchRadius())
-                .emailNotifications(preference.getEmailNotifications())
-                .favoriteArtistsCount((int) artistsCount)
-                .favoriteGenresCount((int) genresCount)
+                .favoriteArtistsCount(artistsCount)
+                .favoriteGenresCount(genresCount)
                 .maxFavoriteArtists(MAX_FAVORITE_ARTISTS)
                 .maxFavoriteGenres(MAX_FAVORITE_GENRES)
                 .build();
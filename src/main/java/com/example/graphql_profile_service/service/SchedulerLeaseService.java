@@ -0,0 +1,46 @@
+package com.example.graphql_profile_service.service;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import org.springframework.stereotype.Service;
+
+import com.example.graphql_profile_service.repository.SchedulerLeaseRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Leases de tareas programadas en la base de datos (tabla scheduler_leases)
+ *
+ * Con varias réplicas del servicio, una tarea que consume cuota externa
+ * (p. ej. la renovación del catálogo contra Spotify) debe correr en una sola
+ * instancia. La dueña renueva el lease en cada ejecución; si deja de hacerlo
+ * (caída, deploy) otra instancia lo toma cuando vence.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SchedulerLeaseService {
+
+    private final SchedulerLeaseRepository leaseRepository;
+
+    // Identidad de esta instancia (una por arranque)
+    private final String owner = UUID.randomUUID().toString();
+
+    /**
+     * Toma o renueva un lease
+     *
+     * @param name Nombre de la tarea
+     * @param ttl  Duración del lease (mayor que el intervalo de renovación)
+     * @return true si esta instancia tiene el lease; false si es de otra o la base no respondió
+     */
+    public boolean tryAcquire(String name, Duration ttl) {
+        try {
+            return leaseRepository.tryAcquire(name, owner, Math.max(1, ttl.toSeconds())) > 0;
+        } catch (RuntimeException e) {
+            log.warn("No se pudo tomar el lease {}: {}", name, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package com.example.graphql_profile_service.service;
 
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 import com.example.graphql_profile_service.dto.UserProfileDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -19,6 +31,15 @@ import lombok.extern.slf4j.Slf4j;
  * - Usuarios regulares (ROLE_USER) solo pueden acceder a su propia información
  * - Intentos de acceso no autorizado lanzan AccessDeniedException (403
  * Forbidden)
+ * 
+ * Caché de ownership:
+ * - userId -> email en memoria (TTL acotado), así un owner check repetido no
+ *   llama a user-service; se invalida con evictUserEmail (cambio de email)
+ * - En un miss, el email sale de la réplica local (UserReplicaService) si está al día
+ * - Antes de denegar se confirma con user-service, por si el email cacheado quedó viejo
+ * - Dentro de un mismo request, cada userId se valida una sola vez aunque
+ *   varios campos de la operación GraphQL lo pidan
+ * - Métricas: cache.* con tag cache=user-emails
  */
 @Component
 @RequiredArgsConstructor
@@ -26,6 +47,34 @@ import lombok.extern.slf4j.Slf4j;
 public class SecurityUtils {
 
     private final UserServiceClient userServiceClient;
+    private final UserReplicaService userReplicaService;
+    private final UserProfileBatcher userProfileBatcher;
+    private final MeterRegistry meterRegistry;
+
+    // Atributo del request con los userIds ya validados para el usuario autenticado
+    private static final String VALIDATED_OWNERS_ATTRIBUTE = SecurityUtils.class.getName() + ".validatedOwners";
+
+    @Value("${security.ownership-cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    @Value("${security.ownership-cache.ttl:10m}")
+    private Duration cacheTtl;
+
+    private Cache<Integer, String> userEmailCache;
+
+    /**
+     * Construye la caché userId -> email y registra sus métricas en actuator
+     */
+    @PostConstruct
+    void initializeOwnershipCache() {
+        userEmailCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, userEmailCache, "user-emails");
+    }
 
     /**
      * Valida que el usuario autenticado sea dueño del recurso o sea ADMIN
@@ -59,28 +108,93 @@ public class SecurityUtils {
             return;
         }
 
-        // Si no es ADMIN, obtener el usuario objetivo y verificar ownership
-        UserProfileDTO targetUser;
-        try {
-            targetUser = userServiceClient.getUserProfile(targetUserId);
-        } catch (Exception e) {
-            log.error("❌ Error fetching target user {}: {}", targetUserId, e.getMessage());
-            throw e;
+        // Autenticado por token JWT: el userId viene en el token
+        if (authentication.getPrincipal() instanceof JwtService.TokenPrincipal principal
+                && targetUserId != null && targetUserId.equals(principal.userId())) {
+            return;
+        }
+
+        // Ya validado en este mismo request (otro campo de la misma operación)
+        Set<Integer> validatedOwners = validatedOwnersInRequest();
+        if (validatedOwners != null && validatedOwners.contains(targetUserId)) {
+            return;
+        }
+
+        // Si no es ADMIN, obtener el email del usuario objetivo (caché) y verificar ownership
+        String targetEmail = userEmailCache.get(targetUserId, this::fetchUserEmail);
+
+        if (!authenticatedEmail.equals(targetEmail)) {
+            // Confirmar con user-service antes de denegar (el email pudo cambiar)
+            userEmailCache.invalidate(targetUserId);
+            targetEmail = userEmailCache.get(targetUserId, this::fetchLiveUserEmail);
         }
 
         // Verificar que el email del usuario autenticado coincida con el del recurso
-        if (!targetUser.getEmail().equals(authenticatedEmail)) {
+        if (!authenticatedEmail.equals(targetEmail)) {
             log.warn("❌ Unauthorized access attempt: User {} trying to access resource owned by userId: {} (email: {})",
-                    authenticatedEmail, targetUserId, targetUser.getEmail());
+                    authenticatedEmail, targetUserId, targetEmail);
             throw new AccessDeniedException("You don't have permission to access this resource");
         }
 
+        if (validatedOwners != null) {
+            validatedOwners.add(targetUserId);
+        }
+
         log.debug("✅ User validated: {} accessing own resource (userId: {})",
                 authenticatedEmail, targetUserId);
     }
 
     /**
-     * Obtiene el ID del usuario autenticado consultando user-service
+     * Invalida el email cacheado de un usuario (cambio de email o baja)
+     * 
+     * @param userId ID del usuario
+     */
+    public void evictUserEmail(Integer userId) {
+        userEmailCache.invalidate(userId);
+        log.info("🗑️ Email de usuario invalidado en caché: {}", userId);
+    }
+
+    /**
+     * Obtiene el email del usuario objetivo desde la réplica local o user-service (loader de la caché)
+     */
+    private String fetchUserEmail(Integer userId) {
+        return userReplicaService.findUserProfile(userId)
+                .map(UserProfileDTO::getEmail)
+                .orElseGet(() -> fetchLiveUserEmail(userId));
+    }
+
+    /**
+     * Obtiene el email del usuario objetivo desde user-service
+     */
+    private String fetchLiveUserEmail(Integer userId) {
+        try {
+            return userProfileBatcher.getUserProfile(userId).getEmail();
+        } catch (Exception e) {
+            log.error("❌ Error fetching target user {}: {}", userId, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * userIds ya validados en el request HTTP actual (null fuera de un request)
+     */
+    @SuppressWarnings("unchecked")
+    private Set<Integer> validatedOwnersInRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Object validated = attributes.getAttribute(VALIDATED_OWNERS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (validated == null) {
+            validated = ConcurrentHashMap.newKeySet();
+            attributes.setAttribute(VALIDATED_OWNERS_ATTRIBUTE, validated, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Set<Integer>) validated;
+    }
+
+    /**
+     * Obtiene el ID del usuario autenticado (réplica local o user-service)
      * 
      * @return userId del usuario autenticado
      * @throws IllegalStateException si el usuario no está autenticado
@@ -93,10 +207,17 @@ public class SecurityUtils {
             throw new IllegalStateException("User not authenticated");
         }
 
+        // Autenticado por token JWT: el userId viene en el token
+        if (authentication.getPrincipal() instanceof JwtService.TokenPrincipal principal
+                && principal.userId() != null) {
+            return principal.userId();
+        }
+
         String email = authentication.getName();
         log.debug("🔍 Fetching userId for authenticated user: {}", email);
 
-        UserProfileDTO user = userServiceClient.getUserByEmail(email);
+        UserProfileDTO user = userReplicaService.findUserProfileByEmail(email)
+                .orElseGet(() -> userServiceClient.getUserByEmail(email));
         log.debug("✅ Authenticated user {} has userId: {}", email, user.getUserId());
 
         return user.getUserId();
@@ -0,0 +1,219 @@
+package com.example.graphql_profile_service.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hc.core5.http.ParseException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+import se.michaelthelin.spotify.exceptions.detailed.TooManyRequestsException;
+
+/**
+ * Planificador de todo el tráfico saliente hacia Spotify Web API
+ *
+ * - Presupuesto token-bucket compartido (requests por segundo + ráfaga)
+ * - Carriles de prioridad: INTERACTIVE (requests de usuarios) pasa antes que
+ *   BACKGROUND (renovaciones de caché y catálogo)
+ * - Un 429 en cualquier carril vacía el bucket y pausa todos los carriles
+ *   durante Retry-After (el límite de Spotify es uno solo para la app);
+ *   el request se reintenta en vez de fallar
+ * - Si la espera supera el presupuesto del carril se lanza ThrottledException,
+ *   y el llamador sirve datos cacheados o stale
+ *
+ * El token de Client Credentials (SpotifyTokenManager) no pasa por aquí: va a
+ * accounts.spotify.com, con su propio límite, y es un request por hora. Si
+ * esperara la pausa de un 429 de la Web API, un token expirado dejaría sin
+ * servicio a los requests incluso después de la pausa.
+ *
+ * Métricas: spotify.scheduler.wait (tag lane), spotify.scheduler.throttled
+ * (429 recibidos) y spotify.scheduler.rejected (presupuesto de espera agotado)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SpotifyRequestScheduler {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spotify.rate-limit.requests-per-second:10}")
+    private double requestsPerSecond;
+
+    @Value("${spotify.rate-limit.burst:20}")
+    private double burst;
+
+    // Espera máxima de un request de usuario antes de servir datos cacheados
+    @Value("${spotify.rate-limit.interactive-wait-budget:2s}")
+    private Duration interactiveWaitBudget;
+
+    // Espera máxima de una renovación en segundo plano
+    @Value("${spotify.rate-limit.background-wait-budget:30s}")
+    private Duration backgroundWaitBudget;
+
+    private final Object lock = new Object();
+
+    private double availableTokens = -1;
+    private long lastRefillNanos = System.nanoTime();
+    private int interactiveWaiting;
+    private long pausedUntilNanos = System.nanoTime();
+
+    /**
+     * Carriles de prioridad (el orden define la prioridad)
+     */
+    public enum Lane {
+        INTERACTIVE("interactive"),
+        BACKGROUND("background");
+
+        private final String tag;
+
+        Lane(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Llamada a Spotify Web API (las mismas excepciones que IRequest.execute)
+     */
+    @FunctionalInterface
+    public interface SpotifyCall<T> {
+        T execute() throws IOException, SpotifyWebApiException, ParseException;
+    }
+
+    /**
+     * Presupuesto de espera agotado: el llamador debe servir datos cacheados
+     * Extiende SpotifyWebApiException para tratarse como un error transitorio más
+     */
+    public static class ThrottledException extends SpotifyWebApiException {
+        public ThrottledException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Ejecuta una llamada a Spotify respetando el presupuesto y la prioridad del carril
+     *
+     * @param lane Carril de prioridad
+     * @param call Llamada a ejecutar
+     * @return Respuesta de Spotify
+     * @throws ThrottledException si no se pudo ejecutar dentro del presupuesto de espera
+     */
+    public <T> T execute(Lane lane, SpotifyCall<T> call) throws IOException, SpotifyWebApiException, ParseException {
+        long deadlineNanos = System.nanoTime() + waitBudget(lane).toNanos();
+
+        while (true) {
+            acquire(lane, deadlineNanos);
+
+            try {
+                return call.execute();
+
+            } catch (TooManyRequestsException e) {
+                int retryAfterSeconds = e.getRetryAfter() > 0 ? e.getRetryAfter() : 1;
+                pause(retryAfterSeconds);
+
+                meterRegistry.counter("spotify.scheduler.throttled", "lane", lane.tag).increment();
+                log.warn("⚠️ Spotify respondió 429 (carril {}), todos los carriles en pausa {}s",
+                        lane.tag, retryAfterSeconds);
+
+                if (System.nanoTime() + TimeUnit.SECONDS.toNanos(retryAfterSeconds) > deadlineNanos) {
+                    throw reject(lane);
+                }
+            }
+        }
+    }
+
+    /**
+     * Espera un token del bucket respetando pausas y prioridad
+     */
+    private void acquire(Lane lane, long deadlineNanos) throws ThrottledException {
+        long startNanos = System.nanoTime();
+
+        synchronized (lock) {
+            if (lane == Lane.INTERACTIVE) {
+                interactiveWaiting++;
+            }
+
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+
+                    long pauseNanos = pausedUntilNanos - now;
+                    boolean yieldToInteractive = lane == Lane.BACKGROUND && interactiveWaiting > 0;
+
+                    if (pauseNanos <= 0 && !yieldToInteractive && availableTokens >= 1) {
+                        availableTokens -= 1;
+                        break;
+                    }
+
+                    long remainingNanos = deadlineNanos - now;
+                    if (remainingNanos <= 0) {
+                        throw reject(lane);
+                    }
+
+                    long refillNanos = (long) ((1 - Math.min(availableTokens, 1)) / requestsPerSecond * 1_000_000_000L);
+                    long waitNanos = Math.min(remainingNanos, Math.max(Math.max(pauseNanos, refillNanos), 1_000_000L));
+                    TimeUnit.NANOSECONDS.timedWait(lock, waitNanos);
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject(lane);
+
+            } finally {
+                if (lane == Lane.INTERACTIVE) {
+                    interactiveWaiting--;
+                }
+                lock.notifyAll();
+            }
+        }
+
+        meterRegistry.timer("spotify.scheduler.wait", "lane", lane.tag)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Pausa todos los carriles y vacía el bucket: vuelve a llenarse
+     * recién cuando termina el Retry-After, sin ráfaga acumulada
+     */
+    private void pause(int retryAfterSeconds) {
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(retryAfterSeconds);
+
+        synchronized (lock) {
+            if (until - pausedUntilNanos > 0) {
+                pausedUntilNanos = until;
+            }
+            availableTokens = 0;
+            lastRefillNanos = pausedUntilNanos;
+            lock.notifyAll();
+        }
+    }
+
+    private void refill(long now) {
+        if (availableTokens < 0) {
+            availableTokens = burst;
+        }
+
+        // Durante una pausa lastRefillNanos queda en el futuro: el bucket no se llena
+        if (now - lastRefillNanos <= 0) {
+            return;
+        }
+
+        double elapsedSeconds = (now - lastRefillNanos) / 1_000_000_000.0;
+        availableTokens = Math.min(burst, availableTokens + elapsedSeconds * requestsPerSecond);
+        lastRefillNanos = now;
+    }
+
+    private ThrottledException reject(Lane lane) {
+        meterRegistry.counter("spotify.scheduler.rejected", "lane", lane.tag).increment();
+        return new ThrottledException("Spotify rate limit: wait budget exceeded for lane " + lane.tag);
+    }
+
+    private Duration waitBudget(Lane lane) {
+        return lane == Lane.INTERACTIVE ? interactiveWaitBudget : backgroundWaitBudget;
+    }
+}
@@ -1,116 +1,533 @@
 package com.example.graphql_profile_service.service;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.hc.core5.http.ParseException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.example.graphql_profile_service.config.RequestDeadline;
 import com.example.graphql_profile_service.dto.ArtistDTO;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import se.michaelthelin.spotify.SpotifyApi;
 import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
-import se.michaelthelin.spotify.model_objects.credentials.ClientCredentials;
+import se.michaelthelin.spotify.exceptions.detailed.BadRequestException;
+import se.michaelthelin.spotify.exceptions.detailed.NotFoundException;
 import se.michaelthelin.spotify.model_objects.specification.Artist;
 import se.michaelthelin.spotify.model_objects.specification.Image;
-import se.michaelthelin.spotify.requests.authorization.client_credentials.ClientCredentialsRequest;
 import se.michaelthelin.spotify.requests.data.artists.GetArtistRequest;
+import se.michaelthelin.spotify.requests.data.artists.GetSeveralArtistsRequest;
 
 /**
  * Service for Spotify API integration
  * Servicio para integración con Spotify Web API
+ *
+ * Los metadatos de artistas se guardan en una caché en memoria acotada
+ * (W-TinyLFU) con TTL y stale-while-revalidate: una entrada
+ * vencida se sirve de inmediato mientras una sola renovación corre en
+ * segundo plano. Métricas: cache.* con tag cache=spotify.artists
+ *
+ * Single-flight: la caché es asíncrona, así que los misses concurrentes de un
+ * mismo Spotify ID comparten un único request y un único future. Cada hilo
+ * espera como máximo spotify.artist-lookup.wait-timeout; un error o una
+ * cancelación llega igual a todos los que esperan y no se guarda en caché
+ *
+ * Caché negativa: los IDs con formato inválido se rechazan sin llamar a Spotify
+ * y los que Spotify responde con 404/400 se recuerdan con un TTL corto.
+ * Métricas: spotify.artists.lookup.errors (respuestas de error de Spotify) y
+ * spotify.artists.lookup.short-circuited (lookups que no llegaron a Spotify:
+ * formato inválido o caché negativa); tag reason = invalid_format | not_found |
+ * bad_request | transient
+ *
+ * Todo request a Spotify pasa por SpotifyRequestScheduler: las consultas de
+ * usuarios van por el carril INTERACTIVE y las renovaciones (reload de la caché
+ * y refreshArtists) por BACKGROUND. Si el presupuesto de espera se agota, el
+ * request falla como transitorio y se sirve el valor stale o del catálogo
+ *
+ * Aislamiento: cada llamada HTTP pasa por el bulkhead "spotify" (concurrencia
+ * acotada) y el circuit breaker "spotify" (half-open con llamadas de prueba).
+ * Con el circuito abierto o el bulkhead lleno se falla de inmediato como error
+ * transitorio, sirviendo datos cacheados. Métrica: outbound.rejected
+ * (tag dependency=spotify, reason = circuit_open | bulkhead_full)
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class SpotifyService {
-    
-    @Value("${spotify.client.id}")
-    private String clientId;
-    
-    @Value("${spotify.client.secret}")
-    private String clientSecret;
-    
-    private SpotifyApi spotifyApi;
-    
+
+    private final SpotifyApi spotifyApi;
+    private final SpotifyTokenManager tokenManager;
+    private final SpotifyRequestScheduler requestScheduler;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final MeterRegistry meterRegistry;
+
+    // Límite de IDs por request en "Get Several Artists"
+    private static final int MAX_IDS_PER_REQUEST = 50;
+
+    // Spotify ID: 22 caracteres base62
+    private static final Pattern SPOTIFY_ID_PATTERN = Pattern.compile("^[0-9A-Za-z]{22}$");
+
+    // Número máximo de artistas en caché
+    @Value("${spotify.artist-cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    // Edad a partir de la cual una entrada se sirve "stale" y se renueva en segundo plano
+    @Value("${spotify.artist-cache.refresh-after:6h}")
+    private Duration cacheRefreshAfter;
+
+    // TTL máximo de una entrada válida
+    @Value("${spotify.artist-cache.expire-after:24h}")
+    private Duration cacheExpireAfter;
+
+    // TTL de los IDs que Spotify respondió con 404/400, para reintentar pronto
+    @Value("${spotify.artist-negative-cache.expire-after:10m}")
+    private Duration negativeExpireAfter;
+
+    @Value("${spotify.artist-negative-cache.maximum-size:10000}")
+    private long negativeMaximumSize;
+
+    // Tiempo máximo que un request espera la respuesta compartida de Spotify
+    @Value("${spotify.artist-lookup.wait-timeout:5s}")
+    private Duration lookupWaitTimeout;
+
+    @Value("${spotify.artist-lookup.threads:8}")
+    private int lookupThreads;
+
+    private ExecutorService lookupExecutor;
+
+    private AsyncLoadingCache<String, ArtistDTO> artistCache;
+
+    private Cache<String, LookupFailure> negativeCache;
+
+    private CircuitBreaker circuitBreaker;
+
+    private Bulkhead bulkhead;
+
+    /**
+     * Construye la caché de artistas y registra sus métricas en actuator
+     */
+    @PostConstruct
+    void initializeArtistCache() {
+        lookupExecutor = Executors.newFixedThreadPool(lookupThreads, runnable -> {
+            Thread thread = new Thread(runnable, "spotify-artist-lookup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        artistCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(cacheExpireAfter)
+                .refreshAfterWrite(cacheRefreshAfter)
+                .executor(lookupExecutor)
+                .recordStats()
+                .buildAsync(new ArtistCacheLoader());
+
+        negativeCache = Caffeine.newBuilder()
+                .maximumSize(negativeMaximumSize)
+                .expireAfterWrite(negativeExpireAfter)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, artistCache, "spotify.artists");
+
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker("spotify");
+        bulkhead = bulkheadRegistry.bulkhead("spotify");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+
     /**
      * Obtiene un artista por su Spotify ID
-     * Enriquece la información con datos de Spotify API
-     * 
+     * Enriquece la información con datos de Spotify API (con caché)
+     *
      * @param spotifyId Spotify ID del artista
      * @return ArtistDTO con información completa del artista
      */
     public ArtistDTO getArtistById(String spotifyId) {
-        log.info("Obteniendo información del artista desde Spotify: {}", spotifyId);
-        
+        if (!isLookupAllowed(spotifyId)) {
+            return unknownArtist(spotifyId);
+        }
+
+        ArtistDTO artist = awaitLookup(artistCache.get(spotifyId), 1);
+        return artist != null ? artist : unknownArtist(spotifyId);
+    }
+
+    /**
+     * Obtiene varios artistas por sus Spotify IDs
+     * Los que no están en caché se piden en requests de hasta 50
+     * (endpoint "Get Several Artists")
+     *
+     * - Respeta el orden (y los duplicados) de la entrada
+     * - Los IDs que fallan o que Spotify no encuentra se mapean a "Unknown Artist"
+     *
+     * @param spotifyIds Spotify IDs de los artistas
+     * @return Lista de ArtistDTO en el mismo orden que la entrada
+     */
+    public List<ArtistDTO> getArtistsByIds(Collection<String> spotifyIds) {
+        if (spotifyIds == null || spotifyIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, ArtistDTO> artists = findArtistsByIds(spotifyIds);
+
+        return spotifyIds.stream()
+                .map(id -> artists.getOrDefault(id, unknownArtist(id)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Busca varios artistas por sus Spotify IDs sin aplicar el fallback
+     * Igual que getArtistsByIds, pero los IDs que no se pudieron resolver
+     * simplemente no aparecen en el resultado
+     *
+     * @param spotifyIds Spotify IDs de los artistas
+     * @return Mapa spotifyId -> ArtistDTO solo con los artistas resueltos
+     */
+    public Map<String, ArtistDTO> findArtistsByIds(Collection<String> spotifyIds) {
+        if (spotifyIds == null || spotifyIds.isEmpty()) {
+            return Map.of();
+        }
+
+        // IDs únicos preservando el orden (sin los inválidos ni los que están en la caché negativa)
+        Set<String> distinctIds = new LinkedHashSet<>();
+        for (String spotifyId : spotifyIds) {
+            if (!distinctIds.contains(spotifyId) && isLookupAllowed(spotifyId)) {
+                distinctIds.add(spotifyId);
+            }
+        }
+
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, ArtistDTO> resolved = awaitLookup(artistCache.getAll(distinctIds), distinctIds.size());
+        return resolved != null ? resolved : Map.of();
+    }
+
+    /**
+     * Renueva varios artistas directamente desde Spotify, sin pasar por la caché
+     * Usado por la renovación programada del catálogo: los resultados reemplazan
+     * las entradas de la caché en memoria
+     *
+     * @param spotifyIds Spotify IDs a renovar (se agrupan en lotes de 50)
+     * @return Mapa spotifyId -> ArtistDTO solo con los artistas resueltos
+     */
+    public Map<String, ArtistDTO> refreshArtists(Collection<String> spotifyIds) {
+        Set<String> distinctIds = new LinkedHashSet<>();
+        for (String spotifyId : spotifyIds) {
+            if (isValidSpotifyId(spotifyId)) {
+                distinctIds.add(spotifyId);
+            }
+        }
+
+        if (distinctIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, ArtistDTO> refreshed = requestArtists(distinctIds, SpotifyRequestScheduler.Lane.BACKGROUND);
+        artistCache.synchronous().putAll(refreshed);
+        return refreshed;
+    }
+
+    /**
+     * Valida el formato de un Spotify ID (22 caracteres base62) sin llamar a Spotify
+     *
+     * @param spotifyId Spotify ID a validar
+     * @return true si el formato es válido
+     */
+    public boolean isValidSpotifyId(String spotifyId) {
+        return spotifyId != null && SPOTIFY_ID_PATTERN.matcher(spotifyId).matches();
+    }
+
+    /**
+     * Decide si un ID puede ir a Spotify: formato válido y sin 404/400 reciente
+     */
+    private boolean isLookupAllowed(String spotifyId) {
+        if (!isValidSpotifyId(spotifyId)) {
+            log.warn("Spotify ID con formato inválido, no se consulta Spotify: {}", spotifyId);
+            countShortCircuit(LookupFailure.INVALID_FORMAT);
+            return false;
+        }
+
+        LookupFailure failure = negativeCache.getIfPresent(spotifyId);
+        if (failure != null) {
+            log.debug("Spotify ID en caché negativa ({}): {}", failure.getTag(), spotifyId);
+            countShortCircuit(failure);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Registra en la caché negativa un 404/400 de Spotify
+     */
+    private void recordNegative(String spotifyId, LookupFailure failure) {
+        negativeCache.put(spotifyId, failure);
+        countError(failure);
+    }
+
+    private void countError(LookupFailure failure) {
+        meterRegistry.counter("spotify.artists.lookup.errors", "reason", failure.getTag()).increment();
+    }
+
+    private void countShortCircuit(LookupFailure failure) {
+        meterRegistry.counter("spotify.artists.lookup.short-circuited", "reason", failure.getTag()).increment();
+    }
+
+    /**
+     * Espera el future compartido de la caché como máximo lookupWaitTimeout
+     * (o lo que le quede al deadline de la operación, si es menos)
+     * Un timeout solo afecta a este hilo; el request compartido sigue en curso
+     *
+     * @return el valor, o null si falló, se canceló o no llegó a tiempo
+     */
+    private <T> T awaitLookup(CompletableFuture<T> lookup, int size) {
+        Duration waitTimeout = RequestDeadline.cap(lookupWaitTimeout);
+
         try {
-            // Inicializar SpotifyApi si es necesario
-            if (spotifyApi == null) {
-                initializeSpotifyApi();
+            return lookup.get(waitTimeout.toNanos(), TimeUnit.NANOSECONDS);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrumpido esperando {} artista(s) de Spotify", size);
+
+        } catch (TimeoutException e) {
+            log.warn("Timeout ({}ms) esperando {} artista(s) de Spotify", waitTimeout.toMillis(), size);
+
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof NotFoundException || cause instanceof BadRequestException) {
+                log.warn("Artista rechazado por Spotify: {}", cause.getMessage());
+            } else {
+                log.error("Error obteniendo artista(s) de Spotify: {}", cause.getMessage(), cause);
             }
-            
-            // Obtener access token
-            String accessToken = getAccessToken();
-            spotifyApi.setAccessToken(accessToken);
-            
-            // Crear request para obtener artista
-            GetArtistRequest getArtistRequest = spotifyApi.getArtist(spotifyId).build();
-            
-            // Ejecutar request
-            Artist artist = getArtistRequest.execute();
-            
-            // Mapear a DTO
-            return mapToArtistDTO(artist);
-            
+        }
+
+        return null;
+    }
+
+    /**
+     * Pide un artista a Spotify
+     */
+    private ArtistDTO requestArtist(String spotifyId, SpotifyRequestScheduler.Lane lane)
+            throws IOException, SpotifyWebApiException, ParseException {
+        log.info("Obteniendo información del artista desde Spotify: {}", spotifyId);
+
+        // Ejecutar request (vía el planificador) y mapear a DTO
+        try {
+            return mapToArtistDTO(requestScheduler.execute(lane, () -> isolated(() -> {
+                // Access token cacheado (se renueva en segundo plano); se lee en
+                // cada intento por si la espera de un 429 lo dejó vencido
+                String accessToken = tokenManager.getAccessToken();
+
+                // Crear request para obtener artista con el token vigente
+                return new GetArtistRequest.Builder(accessToken)
+                        .setDefaults(spotifyApi.getHttpManager(), spotifyApi.getScheme(),
+                                spotifyApi.getHost(), spotifyApi.getPort())
+                        .id(spotifyId)
+                        .build()
+                        .execute();
+            })));
+
+        } catch (NotFoundException e) {
+            recordNegative(spotifyId, LookupFailure.NOT_FOUND);
+            throw e;
+
+        } catch (BadRequestException e) {
+            recordNegative(spotifyId, LookupFailure.BAD_REQUEST);
+            throw e;
+
         } catch (IOException | SpotifyWebApiException | ParseException e) {
-            log.error("Error obteniendo artista de Spotify: {}", e.getMessage(), e);
-            
-            // Retornar DTO básico en caso de error
-            return ArtistDTO.builder()
-                    .spotifyId(spotifyId)
-                    .name("Unknown Artist")
-                    .build();
+            countError(LookupFailure.TRANSIENT);
+            throw e;
         }
     }
-    
+
     /**
-     * Inicializa el cliente de Spotify API
+     * Pide varios artistas a Spotify, en lotes de hasta 50 IDs
+     * Spotify devuelve los artistas en el mismo orden que los IDs (null si no existe)
+     *
+     * @return Mapa spotifyId -> ArtistDTO sin los IDs de los lotes que fallaron
      */
-    private void initializeSpotifyApi() {
-        log.info("Inicializando Spotify API client");
-        spotifyApi = new SpotifyApi.Builder()
-                .setClientId(clientId)
-                .setClientSecret(clientSecret)
-                .build();
+    private Map<String, ArtistDTO> requestArtists(Set<? extends String> spotifyIds, SpotifyRequestScheduler.Lane lane) {
+        List<String> ids = new ArrayList<>(spotifyIds);
+        log.info("Obteniendo {} artistas desde Spotify en lotes de {}", ids.size(), MAX_IDS_PER_REQUEST);
+
+        Map<String, ArtistDTO> result = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += MAX_IDS_PER_REQUEST) {
+            List<String> chunk = ids.subList(from, Math.min(from + MAX_IDS_PER_REQUEST, ids.size()));
+
+            try {
+                Artist[] artists = requestScheduler.execute(lane, () -> isolated(() ->
+                        new GetSeveralArtistsRequest.Builder(tokenManager.getAccessToken())
+                                .setDefaults(spotifyApi.getHttpManager(), spotifyApi.getScheme(),
+                                        spotifyApi.getHost(), spotifyApi.getPort())
+                                .ids(String.join(",", chunk))
+                                .build()
+                                .execute()));
+
+                for (int i = 0; i < chunk.size() && artists != null && i < artists.length; i++) {
+                    if (artists[i] != null) {
+                        result.put(chunk.get(i), mapToArtistDTO(artists[i]));
+                    } else {
+                        // No encontrado: a la caché negativa (no a la de artistas)
+                        log.warn("Artista no encontrado en Spotify: {}", chunk.get(i));
+                        recordNegative(chunk.get(i), LookupFailure.NOT_FOUND);
+                    }
+                }
+
+            } catch (IOException | SpotifyWebApiException | ParseException e) {
+                // El lote fallido no se guarda en caché: se reintenta en la próxima consulta
+                // (un 400 no se puede atribuir a un ID concreto del lote)
+                countError(e instanceof BadRequestException ? LookupFailure.BAD_REQUEST : LookupFailure.TRANSIENT);
+                log.error("Error obteniendo lote de {} artistas de Spotify: {}", chunk.size(), e.getMessage(), e);
+            }
+        }
+
+        return result;
     }
-    
+
     /**
-     * Obtiene un access token de Spotify usando Client Credentials Flow
-     * 
-     * @return Access token válido
+     * Ejecuta una llamada HTTP a Spotify dentro del bulkhead y del circuit breaker
+     * Los 404/400/429 no cuentan como fallo (ver ignore-exceptions en application.properties)
+     *
+     * @throws UnavailableException si el circuito está abierto o el bulkhead lleno
      */
-    private String getAccessToken() {
+    private <T> T isolated(SpotifyRequestScheduler.SpotifyCall<T> call)
+            throws IOException, SpotifyWebApiException, ParseException {
+        if (!bulkhead.tryAcquirePermission()) {
+            meterRegistry.counter("outbound.rejected", "dependency", "spotify", "reason", "bulkhead_full").increment();
+            throw new UnavailableException("Spotify bulkhead full");
+        }
+
         try {
-            ClientCredentialsRequest clientCredentialsRequest = spotifyApi.clientCredentials().build();
-            ClientCredentials clientCredentials = clientCredentialsRequest.execute();
-            
-            log.debug("Access token obtenido exitosamente");
-            return clientCredentials.getAccessToken();
-            
-        } catch (IOException | SpotifyWebApiException | ParseException e) {
-            log.error("Error obteniendo access token de Spotify: {}", e.getMessage(), e);
-            throw new RuntimeException("Error al obtener access token de Spotify", e);
+            if (!circuitBreaker.tryAcquirePermission()) {
+                meterRegistry.counter("outbound.rejected", "dependency", "spotify", "reason", "circuit_open").increment();
+                throw new UnavailableException("Spotify circuit breaker is " + circuitBreaker.getState());
+            }
+
+            long startNanos = System.nanoTime();
+            try {
+                T result = call.execute();
+                circuitBreaker.onSuccess(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                return result;
+
+            } catch (IOException | SpotifyWebApiException | ParseException | RuntimeException e) {
+                circuitBreaker.onError(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS, e);
+                throw e;
+            }
+
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    /**
+     * Spotify aislado (circuito abierto o bulkhead lleno): se trata como error transitorio
+     */
+    private static class UnavailableException extends SpotifyWebApiException {
+        UnavailableException(String message) {
+            super(message);
         }
     }
-    
+
+    /**
+     * DTO básico usado cuando no se puede obtener el artista de Spotify
+     */
+    public ArtistDTO unknownArtist(String spotifyId) {
+        return ArtistDTO.builder()
+                .spotifyId(spotifyId)
+                .name("Unknown Artist")
+                .build();
+    }
+
+    /**
+     * Motivos por los que una consulta de artista no llega a (o no sale bien de) Spotify
+     */
+    private enum LookupFailure {
+        INVALID_FORMAT("invalid_format"),
+        NOT_FOUND("not_found"),
+        BAD_REQUEST("bad_request"),
+        TRANSIENT("transient");
+
+        private final String tag;
+
+        LookupFailure(String tag) {
+            this.tag = tag;
+        }
+
+        String getTag() {
+            return tag;
+        }
+    }
+
+    /**
+     * Loader de la caché de artistas (se ejecuta en lookupExecutor)
+     * - load/loadAll: carril INTERACTIVE (hay un usuario esperando)
+     * - reload: carril BACKGROUND (se sirve el valor stale mientras tanto)
+     * - load: un error completa el future compartido con excepción (no se cachea)
+     * - loadAll: los lotes que fallan y los IDs no encontrados se omiten
+     * - reload: si falla, Caffeine conserva el valor anterior (stale)
+     */
+    private class ArtistCacheLoader implements CacheLoader<String, ArtistDTO> {
+
+        @Override
+        public ArtistDTO load(String spotifyId) throws Exception {
+            return requestArtist(spotifyId, SpotifyRequestScheduler.Lane.INTERACTIVE);
+        }
+
+        @Override
+        public Map<String, ArtistDTO> loadAll(Set<? extends String> spotifyIds) {
+            return requestArtists(spotifyIds, SpotifyRequestScheduler.Lane.INTERACTIVE);
+        }
+
+        @Override
+        public ArtistDTO reload(String spotifyId, ArtistDTO oldValue) throws Exception {
+            log.debug("Renovando en segundo plano artista en caché: {}", spotifyId);
+            return requestArtist(spotifyId, SpotifyRequestScheduler.Lane.BACKGROUND);
+        }
+    }
+
     /**
      * Mapea un objeto Artist de Spotify API a ArtistDTO
-     * 
+     *
      * @param artist Artist object de Spotify API
      * @return ArtistDTO con la información mapeada
      */
@@ -120,23 +537,24 @@ public class SpotifyService {
         if (artist.getImages() != null && artist.getImages().length > 0) {
             imageUrl = artist.getImages()[0].getUrl();
         }
-        
+
         // Convertir géneros a lista
         List<String> genres = null;
         if (artist.getGenres() != null) {
             genres = Arrays.asList(artist.getGenres());
         }
-        
+
         return ArtistDTO.builder()
                 .spotifyId(artist.getId())
                 .name(artist.getName())
                 .genres(genres)
                 .popularity(artist.getPopularity())
                 .imageUrl(imageUrl)
-                .externalUrl(artist.getExternalUrls() != null ? 
+                .externalUrl(artist.getExternalUrls() != null ?
                         artist.getExternalUrls().get("spotify") : null)
-                .followers(artist.getFollowers() != null ? 
+                .followers(artist.getFollowers() != null ?
                         artist.getFollowers().getTotal() : null)
+                .fetchedAt(LocalDateTime.now())
                 .build();
     }
-}
\ No newline at end of file
+}
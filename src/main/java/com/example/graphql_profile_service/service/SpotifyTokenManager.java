@@ -0,0 +1,190 @@
+package com.example.graphql_profile_service.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hc.core5.http.ParseException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import se.michaelthelin.spotify.SpotifyApi;
+import se.michaelthelin.spotify.exceptions.SpotifyWebApiException;
+import se.michaelthelin.spotify.model_objects.credentials.ClientCredentials;
+
+/**
+ * Gestor del access token de Spotify (Client Credentials Flow)
+ *
+ * - Guarda el token vigente y su expiración (expiresIn)
+ * - Lo renueva en segundo plano antes de que expire
+ * - Solo existe una renovación en curso, compartida por todos los hilos
+ * - Los hilos de request solo esperan si el token ya expiró
+ *
+ * El request del token no pasa por SpotifyRequestScheduler: va a
+ * accounts.spotify.com, que no comparte el límite de la Web API, y la
+ * renovación única no puede quedar detrás de la pausa de un 429.
+ *
+ * Métricas: spotify.token.refresh (conteo y latencia, tag outcome)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SpotifyTokenManager {
+
+    private final SpotifyApi spotifyApi;
+    private final MeterRegistry meterRegistry;
+
+    // Margen antes de la expiración en el que se renueva el token
+    @Value("${spotify.token.refresh-margin:5m}")
+    private Duration refreshMargin;
+
+    // Tiempo máximo que un request espera un token nuevo cuando el actual expiró
+    @Value("${spotify.token.await-timeout:10s}")
+    private Duration awaitTimeout;
+
+    private final AtomicReference<CompletableFuture<CachedToken>> inFlightRefresh = new AtomicReference<>();
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "spotify-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile CachedToken currentToken;
+
+    /**
+     * Devuelve un access token válido
+     * Si el token está por expirar dispara una renovación en segundo plano
+     * y devuelve el actual; solo bloquea si el token ya expiró
+     *
+     * @return Access token válido
+     */
+    public String getAccessToken() {
+        CachedToken token = currentToken;
+        Instant now = Instant.now();
+
+        if (token != null && now.isBefore(token.expiresAt())) {
+            if (!now.isBefore(token.refreshAt())) {
+                refreshAsync();
+            }
+            return token.accessToken();
+        }
+
+        log.debug("Access token de Spotify ausente o expirado, esperando renovación");
+        return awaitRefresh().accessToken();
+    }
+
+    /**
+     * Renovación proactiva: mantiene el token caliente aunque no haya tráfico
+     */
+    @Scheduled(fixedDelayString = "${spotify.token.check-interval-ms:30000}")
+    public void refreshIfNeeded() {
+        CachedToken token = currentToken;
+        if (token == null || !Instant.now().isBefore(token.refreshAt())) {
+            refreshAsync();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Espera la renovación en curso (o inicia una nueva)
+     */
+    private CachedToken awaitRefresh() {
+        try {
+            return refreshAsync().get(awaitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Error al obtener access token de Spotify", e);
+        } catch (ExecutionException | TimeoutException e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            throw new RuntimeException("Error al obtener access token de Spotify", cause);
+        }
+    }
+
+    /**
+     * Inicia una renovación si no hay ninguna en curso
+     * Todos los hilos comparten el mismo future
+     */
+    private CompletableFuture<CachedToken> refreshAsync() {
+        while (true) {
+            CompletableFuture<CachedToken> existing = inFlightRefresh.get();
+            if (existing != null) {
+                return existing;
+            }
+
+            CompletableFuture<CachedToken> refresh = new CompletableFuture<>();
+            if (inFlightRefresh.compareAndSet(null, refresh)) {
+                refreshExecutor.execute(() -> runRefresh(refresh));
+                return refresh;
+            }
+        }
+    }
+
+    private void runRefresh(CompletableFuture<CachedToken> refresh) {
+        try {
+            CachedToken token = fetchToken();
+            currentToken = token;
+            inFlightRefresh.set(null);
+            refresh.complete(token);
+        } catch (Throwable e) {
+            inFlightRefresh.set(null);
+            refresh.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Solicita un token nuevo a Spotify y registra la latencia
+     */
+    private CachedToken fetchToken() throws IOException, SpotifyWebApiException, ParseException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+
+        try {
+            ClientCredentials clientCredentials = spotifyApi.clientCredentials().build().execute();
+
+            Instant now = Instant.now();
+            Duration lifetime = Duration.ofSeconds(clientCredentials.getExpiresIn());
+            Duration margin = refreshMargin.compareTo(lifetime.dividedBy(2)) > 0
+                    ? lifetime.dividedBy(2)
+                    : refreshMargin;
+
+            outcome = "success";
+            log.info("✅ Access token de Spotify renovado (expira en {}s)", lifetime.toSeconds());
+
+            return new CachedToken(
+                    clientCredentials.getAccessToken(),
+                    now.plus(lifetime),
+                    now.plus(lifetime).minus(margin));
+
+        } catch (IOException | SpotifyWebApiException | ParseException e) {
+            log.error("Error obteniendo access token de Spotify: {}", e.getMessage(), e);
+            throw e;
+
+        } finally {
+            sample.stop(Timer.builder("spotify.token.refresh")
+                    .description("Renovaciones del access token de Spotify")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+
+    private record CachedToken(String accessToken, Instant expiresAt, Instant refreshAt) {
+    }
+}
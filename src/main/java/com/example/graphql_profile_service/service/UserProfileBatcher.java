@@ -0,0 +1,346 @@
+package com.example.graphql_profile_service.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.graphql_profile_service.config.RequestDeadline;
+import com.example.graphql_profile_service.dto.UserProfileDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Micro-batching de lookups de perfiles en user-service
+ *
+ * Los requests concurrentes que piden perfiles de usuarios distintos se juntan
+ * durante una ventana corta (user-service.batch.window) o hasta llenar un lote
+ * (user-service.batch.max-size) y salen en una sola llamada al endpoint de lote.
+ * Los userIds repetidos dentro del lote comparten la respuesta.
+ *
+ * Si user-service no expone el endpoint de lote, cada lote se resuelve con
+ * llamadas individuales en paralelo (acotado por user-service.batch.parallelism)
+ * y se vuelve a probar el endpoint de lote pasado un tiempo.
+ *
+ * Cada lookup lleva el RequestDeadline de su operación. Las llamadas del pool
+ * corren bajo el deadline más tardío de los lookups que atienden: pasado ese
+ * instante nadie espera la respuesta, y antes ninguno se queda sin ella. Sin
+ * deadline en alguno de ellos, la llamada no se acota.
+ *
+ * Métricas: user.batch.fill (ocupación del lote, 0-1), user.batch.wait (espera
+ * de cada lookup hasta salir en un lote) y user.batch.fallback
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserProfileBatcher {
+
+    private final UserServiceClient userServiceClient;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${user-service.batch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${user-service.batch.max-size:64}")
+    private int maxBatchSize;
+
+    // Tiempo máximo que un lookup espera a que se llene su lote
+    @Value("${user-service.batch.window:2ms}")
+    private Duration window;
+
+    // Llamadas simultáneas a user-service desde el batcher (lotes + fan-out)
+    @Value("${user-service.batch.parallelism:8}")
+    private int parallelism;
+
+    // Tiempo máximo que un llamador espera su perfil
+    @Value("${user-service.batch.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    // Sin endpoint de lote: tiempo antes de volver a probarlo
+    @Value("${user-service.batch.retry-endpoint-after:10m}")
+    private Duration retryEndpointAfter;
+
+    private final BlockingQueue<PendingLookup> queue = new LinkedBlockingQueue<>();
+
+    private ExecutorService executor;
+    private Thread dispatcher;
+
+    // Hasta cuándo se usa fan-out en vez del endpoint de lote (null = endpoint disponible)
+    private volatile Instant batchEndpointRetryAt;
+
+    private DistributionSummary batchFill;
+    private Timer batchWait;
+    private Counter fallbackBatches;
+
+    @PostConstruct
+    void start() {
+        batchFill = DistributionSummary.builder("user.batch.fill")
+                .description("Ocupación de cada lote enviado a user-service (0-1)")
+                .register(meterRegistry);
+
+        batchWait = Timer.builder("user.batch.wait")
+                .description("Espera de cada lookup hasta salir en un lote")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        fallbackBatches = Counter.builder("user.batch.fallback")
+                .description("Lotes resueltos con llamadas individuales en paralelo")
+                .register(meterRegistry);
+
+        if (!enabled) {
+            return;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "user-batch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        dispatcher = new Thread(this::dispatchLoop, "user-batch-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+
+        log.info("📦 Micro-batching de perfiles habilitado (lote: {}, ventana: {}ms)",
+                maxBatchSize, window.toMillis());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Obtiene el perfil de un usuario (bloquea hasta que su lote responde)
+     * La espera se acota al deadline de la operación en curso
+     *
+     * @param userId ID del usuario
+     * @return UserProfileDTO desde user-service
+     * @throws RuntimeException si el usuario no existe o hay error en la comunicación
+     */
+    public UserProfileDTO getUserProfile(Integer userId) {
+        if (!enabled) {
+            return userServiceClient.getUserProfile(userId);
+        }
+
+        RequestDeadline.check("user profile lookup");
+
+        try {
+            return load(userId).get(RequestDeadline.cap(waitTimeout).toNanos(), TimeUnit.NANOSECONDS);
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Error al obtener perfil de usuario: " + e.getCause().getMessage(), e.getCause());
+
+        } catch (TimeoutException e) {
+            RequestDeadline.check("user profile " + userId + " arrived");
+            throw new RuntimeException("Timeout waiting for user profile: " + userId);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for user profile: " + userId);
+        }
+    }
+
+    /**
+     * Encola el lookup de un perfil en el próximo lote
+     *
+     * @param userId ID del usuario
+     * @return Future que se completa con el perfil (o con el error de ese usuario)
+     */
+    public CompletableFuture<UserProfileDTO> load(Integer userId) {
+        PendingLookup lookup = new PendingLookup(userId, new CompletableFuture<>(), System.nanoTime(),
+                RequestDeadline.current());
+        queue.add(lookup);
+        return lookup.future();
+    }
+
+    /**
+     * Junta lookups hasta llenar el lote o cerrar la ventana y los despacha
+     */
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<PendingLookup> batch = new ArrayList<>(maxBatchSize);
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + window.toNanos();
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+
+                    PendingLookup next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                dispatch(batch);
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void dispatch(List<PendingLookup> batch) {
+        long now = System.nanoTime();
+        batch.forEach(lookup -> batchWait.record(now - lookup.enqueuedAt(), TimeUnit.NANOSECONDS));
+        batchFill.record((double) batch.size() / maxBatchSize);
+
+        // userId -> lookups que esperan ese perfil
+        Map<Integer, List<PendingLookup>> byUserId = new LinkedHashMap<>();
+        batch.forEach(lookup -> byUserId.computeIfAbsent(lookup.userId(), id -> new ArrayList<>()).add(lookup));
+
+        RequestDeadline deadline = latestDeadline(batch);
+        try {
+            executor.execute(() -> withDeadline(deadline, () -> {
+                if (byUserId.size() > 1 && batchEndpointAvailable()) {
+                    fetchBatch(byUserId);
+                } else {
+                    fanOut(byUserId);
+                }
+            }));
+        } catch (RuntimeException e) {
+            // Executor detenido (apagado del servicio)
+            batch.forEach(lookup -> lookup.future().completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Un solo request al endpoint de lote; los que no vienen en la respuesta no existen
+     */
+    private void fetchBatch(Map<Integer, List<PendingLookup>> byUserId) {
+        List<UserProfileDTO> profiles;
+        try {
+            profiles = userServiceClient.getUserProfiles(byUserId.keySet());
+
+        } catch (UserServiceClient.BatchNotSupportedException e) {
+            log.warn("⚠️ {}; usando llamadas individuales durante {}", e.getMessage(), retryEndpointAfter);
+            batchEndpointRetryAt = Instant.now().plus(retryEndpointAfter);
+            fanOut(byUserId);
+            return;
+
+        } catch (RuntimeException e) {
+            byUserId.values().forEach(lookups -> lookups.forEach(lookup -> lookup.future().completeExceptionally(e)));
+            return;
+        }
+
+        for (UserProfileDTO profile : profiles) {
+            List<PendingLookup> lookups = byUserId.remove(profile.getUserId());
+            if (lookups != null) {
+                lookups.forEach(lookup -> lookup.future().complete(profile));
+            }
+        }
+
+        byUserId.forEach((userId, lookups) -> lookups.forEach(lookup -> lookup.future()
+                .completeExceptionally(new RuntimeException("User not found with id: " + userId))));
+    }
+
+    /**
+     * Una llamada por userId; cada future se completa por separado
+     *
+     * Corre en un hilo del pool: la primera llamada se hace en ese mismo hilo y
+     * solo las demás se encolan en paralelo. Un lote de un solo userId no pasa
+     * por un segundo hilo ni ocupa dos lugares del pool.
+     */
+    private void fanOut(Map<Integer, List<PendingLookup>> byUserId) {
+        if (byUserId.size() > 1) {
+            fallbackBatches.increment();
+        }
+
+        Iterator<Map.Entry<Integer, List<PendingLookup>>> entries = byUserId.entrySet().iterator();
+        Map.Entry<Integer, List<PendingLookup>> first = entries.next();
+
+        entries.forEachRemaining(entry -> executor.execute(
+                () -> fetchOne(entry.getKey(), entry.getValue())));
+
+        fetchOne(first.getKey(), first.getValue());
+    }
+
+    private void fetchOne(Integer userId, List<PendingLookup> lookups) {
+        withDeadline(latestDeadline(lookups), () -> {
+            try {
+                UserProfileDTO profile = userServiceClient.getUserProfile(userId);
+                lookups.forEach(lookup -> lookup.future().complete(profile));
+            } catch (RuntimeException e) {
+                lookups.forEach(lookup -> lookup.future().completeExceptionally(e));
+            }
+        });
+    }
+
+    /**
+     * Deadline más tardío de los lookups (null si alguno no tiene deadline)
+     */
+    private static RequestDeadline latestDeadline(List<PendingLookup> lookups) {
+        RequestDeadline latest = null;
+        for (PendingLookup lookup : lookups) {
+            if (lookup.deadline() == null) {
+                return null;
+            }
+            if (latest == null || lookup.deadline().remaining().compareTo(latest.remaining()) > 0) {
+                latest = lookup.deadline();
+            }
+        }
+        return latest;
+    }
+
+    private static void withDeadline(RequestDeadline deadline, Runnable task) {
+        if (deadline == null) {
+            task.run();
+            return;
+        }
+        deadline.call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private boolean batchEndpointAvailable() {
+        Instant retryAt = batchEndpointRetryAt;
+        return retryAt == null || Instant.now().isAfter(retryAt);
+    }
+
+    /**
+     * Lookup en espera de su lote
+     *
+     * @param deadline Deadline de la operación que lo pidió (null = sin deadline)
+     */
+    private record PendingLookup(Integer userId, CompletableFuture<UserProfileDTO> future, long enqueuedAt,
+            RequestDeadline deadline) {
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.graphql_profile_service.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.graphql_profile_service.dto.AccountStatusDTO;
+import com.example.graphql_profile_service.dto.ProfileDTO;
+import com.example.graphql_profile_service.dto.ProfileLocationDTO;
+import com.example.graphql_profile_service.dto.UserProfileDTO;
+import com.example.graphql_profile_service.model.Profile;
+import com.example.graphql_profile_service.model.ReplicationWatermark;
+import com.example.graphql_profile_service.model.UserReplica;
+import com.example.graphql_profile_service.repository.ProfileRepository;
+import com.example.graphql_profile_service.repository.ReplicationWatermarkRepository;
+import com.example.graphql_profile_service.repository.UserReplicaRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Réplica local de usuarios de user-service (tabla user_replicas)
+ *
+ * UserReplicaSyncScheduler aplica aquí, por lotes, los cambios incrementales
+ * de user-service: email, roles, estado de la cuenta, perfil y ubicación.
+ * Cada lote se guarda junto con su watermark en la misma transacción, así una
+ * caída a mitad de la sincronización no salta ni duplica cambios. El watermark
+ * solo avanza: un lote que llega detrás de otro más nuevo (otra instancia que
+ * perdió el lease a mitad de una ejecución) se descarta sin escribir nada.
+ *
+ * Los cambios se aplican en el orden del feed: un tombstone (deleted = true)
+ * borra al usuario de la réplica, y si un email pasa a otro usuario el cambio
+ * más reciente se queda con él (la fila anterior se borra hasta que llegue su
+ * propio cambio; mientras tanto ese usuario se consulta en vivo).
+ *
+ * Las lecturas (perfil de usuario, ownership) solo se sirven desde la réplica
+ * si la última sincronización completa fue hace menos de user-replica.max-serve-lag;
+ * si no, devuelven vacío y el llamador consulta user-service en vivo. Solo la
+ * instancia con el lease sincroniza, así que ese instante se lee de la fila del
+ * watermark (updated_at) y no de la memoria del proceso.
+ *
+ * Métricas: user.replica.lag (segundos desde la última sincronización completa)
+ * y user.replica.applied (usuarios aplicados)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserReplicaService {
+
+    // Stream de cambios de user-service en replication_watermarks
+    static final String STREAM_NAME = "user-service";
+
+    private final UserReplicaRepository userReplicaRepository;
+    private final ReplicationWatermarkRepository watermarkRepository;
+    private final ProfileRepository profileRepository;
+    private final MeterRegistry meterRegistry;
+
+    // Retraso máximo de la réplica para servir lecturas desde ella
+    @Value("${user-replica.max-serve-lag:2m}")
+    private Duration maxServeLag;
+
+    // Cada cuánto se vuelve a leer de la base cuándo quedó al día la réplica
+    @Value("${user-replica.status-refresh:5s}")
+    private Duration statusRefresh;
+
+    // Última vez que la réplica quedó al día (leído de replication_watermarks; null = nunca)
+    private volatile LocalDateTime caughtUpAt;
+
+    // Cuándo se leyó caughtUpAt de la base (null = todavía no)
+    private volatile Instant caughtUpCheckedAt;
+
+    private Counter appliedUsers;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("user.replica.lag", this, UserReplicaService::lagSeconds)
+                .description("Segundos desde que la réplica de usuarios estuvo al día con user-service")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        appliedUsers = Counter.builder("user.replica.applied")
+                .description("Usuarios aplicados a la réplica local")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Obtiene el watermark ya aplicado (0 = réplica vacía)
+     */
+    @Transactional(readOnly = true)
+    public long loadWatermark() {
+        return watermarkRepository.findById(STREAM_NAME)
+                .map(ReplicationWatermark::getWatermark)
+                .orElse(0L);
+    }
+
+    /**
+     * Aplica un lote de cambios y avanza el watermark (misma transacción)
+     *
+     * @param users Usuarios modificados, en el orden de user-service
+     * @param watermark Secuencia del último cambio del lote
+     * @return false si el watermark guardado ya estaba en ese punto o más adelante
+     *         (el lote no se aplica)
+     */
+    @Transactional
+    public boolean applyChanges(List<UserProfileDTO> users, long watermark) {
+        // Primero el watermark: su fila queda bloqueada y serializa los lotes concurrentes
+        if (!advanceWatermark(watermark)) {
+            log.warn("Lote de la réplica descartado: el watermark guardado ya llegó a {}", watermark);
+            return false;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        for (UserProfileDTO user : users) {
+            if (user.getUserId() == null) {
+                log.warn("Cambio de usuario sin userId, se omite");
+                continue;
+            }
+
+            if (Boolean.TRUE.equals(user.getDeleted())) {
+                removeReplica(user.getUserId());
+                continue;
+            }
+
+            if (user.getEmail() == null) {
+                log.warn("Cambio del usuario {} sin email, se omite", user.getUserId());
+                continue;
+            }
+
+            releaseEmail(user.getEmail(), user.getUserId());
+            userReplicaRepository.save(toReplica(user, now));
+            ensureProfile(user);
+        }
+
+        appliedUsers.increment(users.size());
+        log.debug("Réplica de usuarios: {} cambios aplicados (watermark: {})", users.size(), watermark);
+        return true;
+    }
+
+    /**
+     * Marca la réplica como al día (el feed de cambios no tiene más páginas)
+     */
+    @Transactional
+    public void markCaughtUp() {
+        LocalDateTime now = LocalDateTime.now();
+
+        if (watermarkRepository.markCaughtUp(STREAM_NAME, now) == 0) {
+            // Feed vacío desde el principio: todavía no había fila
+            watermarkRepository.save(ReplicationWatermark.builder()
+                    .streamName(STREAM_NAME)
+                    .watermark(0L)
+                    .updatedAt(now)
+                    .build());
+        }
+
+        caughtUpAt = now;
+        caughtUpCheckedAt = Instant.now();
+    }
+
+    /**
+     * true si la réplica está lo bastante al día para servir lecturas
+     * (según la última sincronización completa de cualquier instancia)
+     */
+    public boolean isServing() {
+        LocalDateTime lastCaughtUp = lastCaughtUpAt();
+        return lastCaughtUp != null && lastCaughtUp.isAfter(LocalDateTime.now().minus(maxServeLag));
+    }
+
+    /**
+     * Perfil del usuario desde la réplica (sin password)
+     *
+     * @param userId ID del usuario
+     * @return Perfil, o vacío si la réplica está atrasada o no tiene al usuario
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserProfileDTO> findUserProfile(Integer userId) {
+        if (!isServing()) {
+            return Optional.empty();
+        }
+        return userReplicaRepository.findById(userId).map(this::toUserProfile);
+    }
+
+    /**
+     * Perfil del usuario por email desde la réplica (sin password)
+     *
+     * @param email Email del usuario
+     * @return Perfil, o vacío si la réplica está atrasada o no tiene al usuario
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserProfileDTO> findUserProfileByEmail(String email) {
+        if (!isServing()) {
+            return Optional.empty();
+        }
+        return userReplicaRepository.findByEmail(email).map(this::toUserProfile);
+    }
+
+    /**
+     * Avanza el watermark guardado si el nuevo es mayor (crea la fila la primera vez)
+     */
+    private boolean advanceWatermark(long watermark) {
+        if (watermarkRepository.advance(STREAM_NAME, watermark) > 0) {
+            return true;
+        }
+        if (watermarkRepository.existsById(STREAM_NAME)) {
+            return false;
+        }
+
+        // Si otra instancia la crea a la vez, falla la clave primaria y el lote se reintenta
+        watermarkRepository.saveAndFlush(ReplicationWatermark.builder()
+                .streamName(STREAM_NAME)
+                .watermark(watermark)
+                .build());
+        return true;
+    }
+
+    /**
+     * Última sincronización completa, releída de la base cada user-replica.status-refresh
+     */
+    private LocalDateTime lastCaughtUpAt() {
+        Instant checkedAt = caughtUpCheckedAt;
+        if (checkedAt == null || checkedAt.isBefore(Instant.now().minus(statusRefresh))) {
+            try {
+                caughtUpAt = watermarkRepository.findById(STREAM_NAME)
+                        .map(ReplicationWatermark::getUpdatedAt)
+                        .orElse(null);
+            } catch (RuntimeException e) {
+                // Sin base no se sabe qué tan atrasada está: las lecturas van a user-service
+                log.warn("No se pudo leer el estado de la réplica: {}", e.getMessage());
+                caughtUpAt = null;
+            }
+            caughtUpCheckedAt = Instant.now();
+        }
+        return caughtUpAt;
+    }
+
+    /**
+     * Borra al usuario eliminado en user-service (su fila de profiles no se toca)
+     */
+    private void removeReplica(Integer userId) {
+        if (userReplicaRepository.existsById(userId)) {
+            userReplicaRepository.deleteById(userId);
+            log.debug("Usuario {} eliminado de la réplica (tombstone)", userId);
+        }
+    }
+
+    /**
+     * Si otro usuario de la réplica tiene el email, lo borra: el cambio actual es
+     * posterior en el feed y se queda con el email (índice único)
+     */
+    private void releaseEmail(String email, Integer userId) {
+        userReplicaRepository.findByEmail(email)
+                .filter(holder -> !holder.getUserId().equals(userId))
+                .ifPresent(holder -> {
+                    log.debug("Email de la réplica reasignado: usuario {} -> {}", holder.getUserId(), userId);
+                    userReplicaRepository.delete(holder);
+                    // El DELETE tiene que llegar antes que el INSERT/UPDATE con el mismo email
+                    userReplicaRepository.flush();
+                });
+    }
+
+    /**
+     * Crea la fila de profiles si falta (las existentes son de user-service y no se tocan)
+     */
+    private void ensureProfile(UserProfileDTO user) {
+        ProfileDTO profile = user.getProfile();
+        if (profile == null || profile.getProfileId() == null
+                || profileRepository.existsById(profile.getProfileId())) {
+            return;
+        }
+
+        profileRepository.save(Profile.builder()
+                .profileId(profile.getProfileId())
+                .name(profile.getName())
+                .userId(user.getUserId())
+                .build());
+    }
+
+    private UserReplica toReplica(UserProfileDTO user, LocalDateTime syncedAt) {
+        AccountStatusDTO status = user.getAccountStatus();
+        ProfileDTO profile = user.getProfile();
+        ProfileLocationDTO location = profile != null ? profile.getLocation() : null;
+
+        return UserReplica.builder()
+                .userId(user.getUserId())
+                .email(user.getEmail())
+                .userType(user.getUserType())
+                .roles(user.getRoles() != null ? String.join(",", user.getRoles()) : null)
+                .enabled(status != null ? status.getEnabled() : null)
+                .accountNonExpired(status != null ? status.getAccountNonExpired() : null)
+                .accountNonLocked(status != null ? status.getAccountNonLocked() : null)
+                .credentialsNonExpired(status != null ? status.getCredentialsNonExpired() : null)
+                .profileId(profile != null ? profile.getProfileId() : null)
+                .profileName(profile != null ? profile.getName() : null)
+                .municipality(location != null ? location.getMunicipality() : null)
+                .state(location != null ? location.getState() : null)
+                .country(location != null ? location.getCountry() : null)
+                .sourceUpdatedAt(user.getUpdatedAt())
+                .syncedAt(syncedAt)
+                .build();
+    }
+
+    private UserProfileDTO toUserProfile(UserReplica replica) {
+        Set<String> roles = replica.getRoles() == null || replica.getRoles().isBlank()
+                ? Set.of()
+                : Arrays.stream(replica.getRoles().split(","))
+                        .map(String::trim)
+                        .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        ProfileDTO profile = replica.getProfileId() == null ? null : ProfileDTO.builder()
+                .profileId(replica.getProfileId())
+                .name(replica.getProfileName())
+                .location(ProfileLocationDTO.builder()
+                        .municipality(replica.getMunicipality())
+                        .state(replica.getState())
+                        .country(replica.getCountry())
+                        .build())
+                .build();
+
+        return UserProfileDTO.builder()
+                .userId(replica.getUserId())
+                .email(replica.getEmail())
+                .userType(replica.getUserType())
+                .roles(roles)
+                .profile(profile)
+                .accountStatus(AccountStatusDTO.builder()
+                        .enabled(replica.getEnabled())
+                        .accountNonExpired(replica.getAccountNonExpired())
+                        .accountNonLocked(replica.getAccountNonLocked())
+                        .credentialsNonExpired(replica.getCredentialsNonExpired())
+                        .build())
+                .updatedAt(replica.getSourceUpdatedAt())
+                .build();
+    }
+
+    private double lagSeconds() {
+        LocalDateTime lastCaughtUp = lastCaughtUpAt();
+        return lastCaughtUp != null
+                ? Duration.between(lastCaughtUp, LocalDateTime.now()).toMillis() / 1000.0
+                : Double.NaN;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.graphql_profile_service.service;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.graphql_profile_service.dto.UserChangesDTO;
+import com.example.graphql_profile_service.dto.UserProfileDTO;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sincronización incremental de la réplica de usuarios desde user-service
+ *
+ * Cada ejecución pide a user-service los cambios posteriores al watermark
+ * guardado (GET /api/v1/users/internal/changes?since=...&limit=...) y aplica
+ * cada página como un lote. Cuando el feed responde sin más páginas, la
+ * réplica queda al día y puede servir lecturas.
+ *
+ * Si user-service falla, el watermark no avanza y la siguiente ejecución
+ * reintenta desde el mismo punto; mientras tanto crece user.replica.lag y,
+ * pasado user-replica.max-serve-lag, las lecturas vuelven a user-service.
+ *
+ * Con varias réplicas del servicio solo sincroniza la instancia que tiene el
+ * lease "user-replica" (SchedulerLeaseService); las demás leen la réplica que
+ * ella mantiene.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserReplicaSyncScheduler {
+
+    private final UserServiceClient userServiceClient;
+    private final UserReplicaService userReplicaService;
+    private final SchedulerLeaseService leaseService;
+
+    // Lease en scheduler_leases: una sola instancia sincroniza
+    private static final String LEASE_NAME = "user-replica";
+
+    @Value("${user-replica.enabled:false}")
+    private boolean enabled;
+
+    // Usuarios por página del feed de cambios
+    @Value("${user-replica.page-size:200}")
+    private int pageSize;
+
+    // Páginas máximas por ejecución (acota la duración de la primera carga)
+    @Value("${user-replica.max-pages-per-run:50}")
+    private int maxPagesPerRun;
+
+    // Duración del lease; se renueva en cada ejecución, así que debe ser mayor que el intervalo
+    @Value("${user-replica.lease-ttl:1m}")
+    private Duration leaseTtl;
+
+    /**
+     * Aplica los cambios pendientes de user-service (sin lease no hace nada)
+     */
+    @Scheduled(fixedDelayString = "${user-replica.sync-interval-ms:15000}",
+            initialDelayString = "${user-replica.initial-delay-ms:5000}")
+    public void synchronize() {
+        if (!enabled || !leaseService.tryAcquire(LEASE_NAME, leaseTtl)) {
+            return;
+        }
+
+        long watermark = userReplicaService.loadWatermark();
+        int applied = 0;
+
+        try {
+            for (int page = 0; page < maxPagesPerRun; page++) {
+                UserChangesDTO changes = userServiceClient.getUserChanges(watermark, pageSize);
+                List<UserProfileDTO> users = changes.getUsers() != null ? changes.getUsers() : List.of();
+                long next = changes.getWatermark() != null ? changes.getWatermark() : watermark;
+
+                if (!users.isEmpty() || next != watermark) {
+                    if (!userReplicaService.applyChanges(users, next)) {
+                        // Otra instancia ya aplicó más adelante: se sigue desde su watermark la próxima vez
+                        break;
+                    }
+                    applied += users.size();
+                    watermark = next;
+                }
+
+                if (!Boolean.TRUE.equals(changes.getHasMore())) {
+                    userReplicaService.markCaughtUp();
+                    break;
+                }
+            }
+
+            if (applied > 0) {
+                log.info("🔄 Réplica de usuarios: {} cambios aplicados (watermark: {})", applied, watermark);
+            }
+
+        } catch (RuntimeException e) {
+            // Se reintenta desde el último watermark guardado
+            log.warn("⚠️ Error sincronizando la réplica de usuarios (watermark: {}): {}", watermark, e.getMessage());
+        }
+    }
+}
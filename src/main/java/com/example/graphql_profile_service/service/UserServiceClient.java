@@ -1,14 +1,47 @@
 package com.example.graphql_profile_service.service;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import com.example.graphql_profile_service.config.HedgeRouting;
+import com.example.graphql_profile_service.config.HttpCancellationScope;
+import com.example.graphql_profile_service.config.RequestDeadline;
+import com.example.graphql_profile_service.dto.UserChangesDTO;
 import com.example.graphql_profile_service.dto.UserProfileDTO;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,6 +57,27 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * ACTUALIZADO: Ahora usa los endpoints internos de user-service
  * que no requieren autenticación para comunicación entre microservicios
+ *
+ * AISLAMIENTO: cada llamada pasa por el bulkhead "user-service" (concurrencia
+ * acotada, para no bloquear todos los hilos de Tomcat) y el circuit breaker
+ * "user-service" (half-open con llamadas de prueba). Con el circuito abierto o
+ * el bulkhead lleno se falla de inmediato. Métrica: outbound.rejected
+ * (tag dependency=user-service, reason = circuit_open | bulkhead_full)
+ *
+ * HEDGING (opcional, user-service.hedging.enabled): en los GET del camino de
+ * autenticación (perfil por id y usuario por email), si el primer intento no
+ * respondió en el percentil configurado de latencia, sale un segundo intento
+ * idéntico a otra instancia (el balanceador excluye la del primero; sin otra
+ * instancia, o con URL directa, no hay hedge). El primer intento corre en el
+ * hilo del llamador y solo el hedge usa el pool acotado de hedging. Gana la
+ * primera respuesta y el otro intento se aborta. Un presupuesto acota los
+ * hedges a un porcentaje de los requests. Métricas: outbound.hedge.fired,
+ * outbound.hedge.won, outbound.hedge.denied (sin presupuesto o sin hilos),
+ * outbound.hedge.skipped (sin instancia alternativa)
+ *
+ * DEADLINE: el timeout de cada request se acota al RequestDeadline de la
+ * operación GraphQL (también en los hilos de hedging). Un request abortado
+ * porque venció el deadline no cuenta como fallo de user-service.
  */
 @Service
 @RequiredArgsConstructor
@@ -31,10 +85,95 @@ import lombok.extern.slf4j.Slf4j;
 public class UserServiceClient {
 
     private final RestTemplate restTemplate;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final MeterRegistry meterRegistry;
 
     @Value("${user-service.url:http://user-service}")
     private String userServiceUrl;
 
+    @Value("${user-service.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    // Percentil de latencia a partir del cual se lanza el segundo intento
+    @Value("${user-service.hedging.percentile:0.95}")
+    private double hedgingPercentile;
+
+    // Espera antes del hedge mientras no hay suficientes mediciones
+    @Value("${user-service.hedging.initial-delay:200ms}")
+    private Duration hedgingInitialDelay;
+
+    @Value("${user-service.hedging.min-delay:20ms}")
+    private Duration hedgingMinDelay;
+
+    // Hedges permitidos por request (0.05 = como máximo 5% de carga extra)
+    @Value("${user-service.hedging.budget-ratio:0.05}")
+    private double hedgingBudgetRatio;
+
+    // Hedges en curso como máximo (hilos del pool de hedging)
+    @Value("${user-service.hedging.max-concurrent:10}")
+    private int hedgingMaxConcurrent;
+
+    private CircuitBreaker circuitBreaker;
+
+    private Bulkhead bulkhead;
+
+    private Timer attemptLatency;
+
+    private HedgeBudget hedgeBudget;
+
+    // Lanza el hedge al vencer la espera (no hace I/O)
+    private ScheduledThreadPoolExecutor hedgingTimer;
+
+    private ThreadPoolExecutor hedgingExecutor;
+
+    @PostConstruct
+    void initializeIsolation() {
+        circuitBreaker = circuitBreakerRegistry.circuitBreaker("user-service");
+        bulkhead = bulkheadRegistry.bulkhead("user-service");
+
+        if (hedgingEnabled) {
+            attemptLatency = Timer.builder("outbound.hedge.latency")
+                    .description("Latencia de los GET a user-service con hedging (define la espera del hedge)")
+                    .tag("dependency", "user-service")
+                    .publishPercentiles(hedgingPercentile)
+                    .distributionStatisticExpiry(Duration.ofMinutes(1))
+                    .register(meterRegistry);
+
+            hedgeBudget = new HedgeBudget(hedgingBudgetRatio);
+
+            hedgingTimer = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "user-service-hedge-timer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Los primeros intentos que terminan a tiempo descartan su hedge de la cola en el momento
+            hedgingTimer.setRemoveOnCancelPolicy(true);
+
+            // Sin cola: con todos los hilos ocupados el hedge se rechaza y se espera al primer intento
+            AtomicInteger threadCount = new AtomicInteger();
+            hedgingExecutor = new ThreadPoolExecutor(0, hedgingMaxConcurrent, 60, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "user-service-hedge-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+            log.info("🔀 Hedging de requests a user-service habilitado (p{}, presupuesto {}%)",
+                    Math.round(hedgingPercentile * 100), Math.round(hedgingBudgetRatio * 100));
+        }
+    }
+
+    @PreDestroy
+    void shutdownHedging() {
+        if (hedgingTimer != null) {
+            hedgingTimer.shutdownNow();
+        }
+        if (hedgingExecutor != null) {
+            hedgingExecutor.shutdownNow();
+        }
+    }
+
     /**
      * Obtiene el perfil completo de un usuario desde user-service
      * Usa el endpoint INTERNO que no requiere autenticación
@@ -57,9 +196,9 @@ public class UserServiceClient {
             log.debug("URL de comunicación interna (endpoint interno): {}", url);
 
             // Hacer la llamada REST GET al user-service
-            ResponseEntity<UserProfileDTO> response = restTemplate.getForEntity(
+            ResponseEntity<UserProfileDTO> response = hedged(() -> restTemplate.getForEntity(
                     url,
-                    UserProfileDTO.class);
+                    UserProfileDTO.class));
 
             // Validar respuesta
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
@@ -82,6 +221,9 @@ public class UserServiceClient {
                     e.getStatusCode(), e.getMessage());
             throw new RuntimeException("Error al comunicarse con user-service: " + e.getMessage());
 
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw rejected(e);
+
         } catch (Exception e) {
             log.error("❌ Error inesperado al obtener perfil de usuario: {}", e.getMessage(), e);
             throw new RuntimeException("Error al obtener perfil de usuario: " + e.getMessage());
@@ -102,9 +244,9 @@ public class UserServiceClient {
             // Usar el endpoint INTERNO de verificación de existencia
             String url = userServiceUrl + "/api/v1/users/" + userId + "/exists";
 
-            ResponseEntity<Boolean> response = restTemplate.getForEntity(
+            ResponseEntity<Boolean> response = isolated(() -> restTemplate.getForEntity(
                     url,
-                    Boolean.class);
+                    Boolean.class));
 
             boolean exists = response.getStatusCode() == HttpStatus.OK &&
                     response.getBody() != null &&
@@ -117,6 +259,10 @@ public class UserServiceClient {
             log.debug("Usuario {} no existe en user-service", userId);
             return false;
 
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            rejected(e);
+            return false;
+
         } catch (Exception e) {
             log.warn("⚠️ Error al verificar existencia de usuario {}: {}",
                     userId, e.getMessage());
@@ -142,9 +288,9 @@ public class UserServiceClient {
 
             log.debug("URL de comunicación interna: {}", url);
 
-            ResponseEntity<UserProfileDTO> response = restTemplate.getForEntity(
+            ResponseEntity<UserProfileDTO> response = hedged(() -> restTemplate.getForEntity(
                     url,
-                    UserProfileDTO.class);
+                    UserProfileDTO.class));
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 log.info("✅ User fetched by email successfully from user-service");
@@ -163,9 +309,339 @@ public class UserServiceClient {
                     e.getStatusCode(), e.getMessage());
             throw new RuntimeException("Error communicating with user-service: " + e.getMessage());
 
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw rejected(e);
+
         } catch (Exception e) {
             log.error("❌ Unexpected error fetching user by email: {}", e.getMessage(), e);
             throw new RuntimeException("Error fetching user by email: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtiene varios perfiles en una sola llamada (endpoint INTERNO de lote)
+     * Usado por UserProfileBatcher para agrupar lookups concurrentes
+     * 
+     * @param userIds IDs de los usuarios (sin repetidos)
+     * @return Perfiles encontrados (los usuarios que no existen no vienen en la lista)
+     * @throws BatchNotSupportedException si user-service no expone el endpoint de lote
+     * @throws RuntimeException si hay error en la comunicación
+     */
+    public List<UserProfileDTO> getUserProfiles(Collection<Integer> userIds) {
+        log.debug("🔗 Llamada REST interna a user-service para {} perfiles en lote", userIds.size());
+
+        try {
+            String url = userServiceUrl + "/api/v1/users/internal/batch";
+
+            ResponseEntity<UserProfileDTO[]> response = isolated(() -> restTemplate.postForEntity(
+                    url,
+                    userIds,
+                    UserProfileDTO[].class));
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                return Arrays.asList(response.getBody());
+            }
+
+            throw new RuntimeException("Empty batch response from user-service");
+
+        } catch (HttpClientErrorException.NotFound | HttpClientErrorException.MethodNotAllowed e) {
+            throw new BatchNotSupportedException(e);
+
+        } catch (HttpServerErrorException.NotImplemented e) {
+            throw new BatchNotSupportedException(e);
+
+        } catch (HttpClientErrorException e) {
+            log.error("❌ HTTP error fetching user batch from user-service: {} - {}",
+                    e.getStatusCode(), e.getMessage());
+            throw new RuntimeException("Error communicating with user-service: " + e.getMessage());
+
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw rejected(e);
+        }
+    }
+
+    /**
+     * Obtiene una página de usuarios modificados después de un watermark
+     * Usa el endpoint INTERNO de cambios de user-service (sincronización de la réplica local)
+     * 
+     * @param since Secuencia del último cambio ya aplicado (0 = desde el inicio)
+     * @param limit Máximo de usuarios por página
+     * @return UserChangesDTO con los usuarios, el nuevo watermark y si quedan más
+     * @throws RuntimeException si hay error en la comunicación
+     */
+    public UserChangesDTO getUserChanges(long since, int limit) {
+        log.debug("🔄 Obteniendo cambios de usuarios desde user-service (since: {}, limit: {})", since, limit);
+
+        try {
+            String url = userServiceUrl + "/api/v1/users/internal/changes?since=" + since + "&limit=" + limit;
+
+            ResponseEntity<UserChangesDTO> response = isolated(() -> restTemplate.getForEntity(
+                    url,
+                    UserChangesDTO.class));
+
+            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
+                return response.getBody();
+            }
+
+            throw new RuntimeException("Empty change feed response from user-service");
+
+        } catch (HttpClientErrorException e) {
+            log.error("❌ HTTP error reading user changes from user-service: {} - {}",
+                    e.getStatusCode(), e.getMessage());
+            throw new RuntimeException("Error communicating with user-service: " + e.getMessage());
+
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw rejected(e);
+        }
+    }
+
+    /**
+     * Ejecuta una llamada a user-service dentro del bulkhead y del circuit breaker
+     * Los 4xx y los deadlines vencidos no cuentan como fallo (ver ignore-exceptions
+     * en application.properties)
+     */
+    private <T> T isolated(Supplier<T> call) {
+        return Bulkhead.decorateSupplier(bulkhead,
+                CircuitBreaker.decorateSupplier(circuitBreaker, () -> withinDeadline(call))).get();
+    }
+
+    /**
+     * Si la llamada falla con el deadline ya vencido, la causa es el deadline
+     * (el request se abortó o ni salió), no user-service
+     */
+    private static <T> T withinDeadline(Supplier<T> call) {
+        try {
+            return call.get();
+        } catch (RequestDeadline.DeadlineExceededException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            RequestDeadline deadline = RequestDeadline.current();
+            if (deadline != null && deadline.isExpired()) {
+                RequestDeadline.DeadlineExceededException exceeded =
+                        new RequestDeadline.DeadlineExceededException("Deadline exceeded calling user-service");
+                exceeded.initCause(e);
+                throw exceeded;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * GET idempotente con hedging: el primer intento corre en este hilo; si
+     * tarda más que el percentil configurado, hay otra instancia y hay
+     * presupuesto, se lanza un hedge en el pool de hedging. Cada intento pasa
+     * por isolated(); el perdedor se aborta y no cuenta como fallo en el
+     * circuit breaker.
+     */
+    private <T> T hedged(Supplier<T> call) {
+        if (!hedgingEnabled) {
+            return isolated(call);
+        }
+
+        hedgeBudget.deposit();
+
+        Hedge<T> hedge = new Hedge<>(call, RequestDeadline.current());
+        ScheduledFuture<?> trigger = hedgingTimer.schedule(hedge::fire, hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+
+        T result = null;
+        RuntimeException primaryError = null;
+        try {
+            result = measured(hedge.primaryScope, () -> isolated(
+                    () -> hedge.primaryRouting.call(() -> hedge.primaryScope.call(call))));
+        } catch (RuntimeException e) {
+            primaryError = e;
+        } finally {
+            trigger.cancel(false);
+        }
+
+        CompletableFuture<T> hedgeResult = hedge.close();
+        try {
+            if (result != null) {
+                return result;
+            }
+
+            // El primer intento se abortó (ganó el hedge) o falló: gana el hedge si salió bien
+            T hedged = hedgeResult != null ? awaitQuietly(hedgeResult) : null;
+            if (hedged != null) {
+                meterRegistry.counter("outbound.hedge.won", "dependency", "user-service").increment();
+                return hedged;
+            }
+            if (primaryError != null) {
+                throw primaryError;
+            }
+            throw new RuntimeException("user-service attempt cancelled");
+
+        } finally {
+            hedge.cancel();
+        }
+    }
+
+    /**
+     * Ejecuta un intento y registra su latencia (salvo que se haya abortado)
+     */
+    private <T> T measured(HttpCancellationScope scope, Supplier<T> attempt) {
+        long startNanos = System.nanoTime();
+        T result = attempt.get();
+        if (!scope.isCancelled()) {
+            attemptLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * Espera antes del hedge: percentil observado, con un mínimo
+     */
+    private Duration hedgeDelay() {
+        HistogramSnapshot snapshot = attemptLatency.takeSnapshot();
+        ValueAtPercentile[] percentiles = snapshot.percentileValues();
+
+        if (snapshot.count() < 20 || percentiles.length == 0) {
+            return hedgingInitialDelay;
+        }
+
+        long nanos = (long) percentiles[0].value(TimeUnit.NANOSECONDS);
+        return nanos > hedgingMinDelay.toNanos() ? Duration.ofNanos(nanos) : hedgingMinDelay;
+    }
+
+    /**
+     * Resultado del hedge, o null si falló (prevalece el error del primer intento)
+     */
+    private static <T> T awaitQuietly(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted calling user-service", e);
+        }
+    }
+
+    /**
+     * Registra una llamada rechazada sin llegar a user-service (fail fast)
+     */
+    private RuntimeException rejected(RuntimeException e) {
+        String reason = e instanceof CallNotPermittedException ? "circuit_open" : "bulkhead_full";
+        meterRegistry.counter("outbound.rejected", "dependency", "user-service", "reason", reason).increment();
+
+        log.warn("⚠️ user-service no disponible ({}), fallando rápido", reason);
+        return new RuntimeException("user-service unavailable: " + reason, e);
+    }
+
+    /**
+     * Segundo intento de un request con hedging
+     *
+     * fire() corre en el timer al vencer la espera: si el primer intento sigue
+     * en curso, fue a una instancia con alternativa y hay presupuesto e hilo
+     * libre, lanza el hedge a otra instancia. Si el hedge responde primero,
+     * aborta el primer intento.
+     */
+    private class Hedge<T> {
+
+        final HttpCancellationScope primaryScope = new HttpCancellationScope();
+        final HedgeRouting primaryRouting = new HedgeRouting();
+
+        private final HttpCancellationScope scope = new HttpCancellationScope();
+        private final Supplier<T> call;
+        private final RequestDeadline deadline;
+
+        private CompletableFuture<T> result;
+        private boolean closed;
+
+        Hedge(Supplier<T> call, RequestDeadline deadline) {
+            this.call = call;
+            this.deadline = deadline;
+        }
+
+        synchronized void fire() {
+            if (closed) {
+                return;
+            }
+
+            if (!primaryRouting.canHedge()) {
+                meterRegistry.counter("outbound.hedge.skipped", "dependency", "user-service").increment();
+                return;
+            }
+
+            if (!hedgeBudget.tryWithdraw()) {
+                meterRegistry.counter("outbound.hedge.denied", "dependency", "user-service").increment();
+                return;
+            }
+
+            HedgeRouting routing = primaryRouting.forHedge();
+            Supplier<T> attempt = () -> measured(scope, () -> isolated(() -> routing.call(() -> scope.call(call))));
+
+            try {
+                result = CompletableFuture.supplyAsync(
+                        () -> deadline != null ? deadline.call(attempt) : attempt.get(), hedgingExecutor);
+            } catch (RejectedExecutionException e) {
+                hedgeBudget.refund();
+                meterRegistry.counter("outbound.hedge.denied", "dependency", "user-service").increment();
+                return;
+            }
+
+            meterRegistry.counter("outbound.hedge.fired", "dependency", "user-service").increment();
+            result.thenAccept(value -> {
+                if (value != null) {
+                    primaryScope.cancel();
+                }
+            });
+        }
+
+        /**
+         * Impide lanzar el hedge desde ahora
+         *
+         * @return El hedge, o null si no se lanzó
+         */
+        synchronized CompletableFuture<T> close() {
+            closed = true;
+            return result;
+        }
+
+        void cancel() {
+            scope.cancel();
+        }
+    }
+
+    /**
+     * Presupuesto de hedges: cada request suma budget-ratio, cada hedge gasta 1
+     */
+    private static class HedgeBudget {
+
+        // Ráfaga máxima de hedges acumulables
+        private static final double MAX_TOKENS = 10;
+
+        private final double ratio;
+        private double tokens;
+
+        HedgeBudget(double ratio) {
+            this.ratio = ratio;
+        }
+
+        synchronized void deposit() {
+            tokens = Math.min(MAX_TOKENS, tokens + ratio);
+        }
+
+        synchronized void refund() {
+            tokens = Math.min(MAX_TOKENS, tokens + 1);
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    /**
+     * user-service no expone el endpoint de lote (404/405/501)
+     */
+    public static class BatchNotSupportedException extends RuntimeException {
+
+        BatchNotSupportedException(HttpStatusCodeException cause) {
+            super("user-service batch endpoint not available: " + cause.getStatusCode(), cause);
+        }
+    }
+}
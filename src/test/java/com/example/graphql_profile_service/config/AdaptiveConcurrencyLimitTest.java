@@ -0,0 +1,126 @@
+package com.example.graphql_profile_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * AdaptiveConcurrencyLimit con reloj controlado: cada ronda ocupa todo el
+ * límite, espera la latencia indicada y libera (cerrando una ventana por ronda)
+ */
+class AdaptiveConcurrencyLimitTest {
+
+    private static final AdaptiveConcurrencyLimit.Settings SETTINGS = new AdaptiveConcurrencyLimit.Settings(
+            20, 4, 100, 1.5, 0.2, Duration.ofSeconds(1));
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(1));
+
+    private AdaptiveConcurrencyLimit limit;
+
+    @BeforeEach
+    void setUp() {
+        limit = new AdaptiveConcurrencyLimit("test", SETTINGS, clock::get);
+    }
+
+    @Test
+    void rejectsOnceTheLimitIsInUseAndReleaseFreesASlot() {
+        List<AdaptiveConcurrencyLimit.Permit> permits = acquireAll();
+        assertThat(permits).hasSize(20);
+        assertThat(limit.getInFlight()).isEqualTo(20);
+        assertThat(limit.tryAcquire()).isEmpty();
+
+        permits.get(0).release();
+        // release() es idempotente
+        permits.get(0).release();
+
+        assertThat(limit.getInFlight()).isEqualTo(19);
+        assertThat(limit.tryAcquire()).isPresent();
+    }
+
+    @Test
+    void limitGrowsWhileLatencyHolds() {
+        int previous = limit.getLimit();
+        for (int round = 0; round < 10; round++) {
+            saturatedRound(10);
+            assertThat(limit.getLimit()).isGreaterThanOrEqualTo(previous);
+            previous = limit.getLimit();
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(SETTINGS.initialLimit());
+    }
+
+    @Test
+    void limitNeverExceedsTheMaximum() {
+        for (int round = 0; round < 200; round++) {
+            saturatedRound(10);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(SETTINGS.maxLimit());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRisesAndStopsAtTheMinimum() {
+        for (int round = 0; round < 5; round++) {
+            saturatedRound(10);
+        }
+        int beforeQueueing = limit.getLimit();
+
+        // Los requests empiezan a hacer cola: la latencia se multiplica por 10
+        // (la primera ventana todavía arrastra muestras de la ronda anterior)
+        for (int round = 0; round < 3; round++) {
+            saturatedRound(100);
+        }
+        assertThat(limit.getLimit()).isLessThan(beforeQueueing);
+
+        for (int round = 0; round < 200; round++) {
+            saturatedRound(100);
+        }
+        assertThat(limit.getLimit()).isEqualTo(SETTINGS.minLimit());
+    }
+
+    @Test
+    void lowUtilizationDoesNotChangeTheLimit() {
+        // Un request a la vez: la latencia no dice nada sobre la capacidad
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 20; i++) {
+                AdaptiveConcurrencyLimit.Permit permit = limit.tryAcquire().orElseThrow();
+                advance(Duration.ofMillis(100));
+                permit.release();
+            }
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(SETTINGS.initialLimit());
+    }
+
+    /**
+     * Ocupa todo el límite, libera tras latencyMillis y cierra la ventana
+     */
+    private void saturatedRound(long latencyMillis) {
+        advance(SETTINGS.window());
+        List<AdaptiveConcurrencyLimit.Permit> permits = acquireAll();
+        advance(Duration.ofMillis(latencyMillis));
+        permits.forEach(AdaptiveConcurrencyLimit.Permit::release);
+    }
+
+    private List<AdaptiveConcurrencyLimit.Permit> acquireAll() {
+        List<AdaptiveConcurrencyLimit.Permit> permits = new ArrayList<>();
+        while (true) {
+            var permit = limit.tryAcquire();
+            if (permit.isEmpty()) {
+                return permits;
+            }
+            permits.add(permit.get());
+        }
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.graphql_profile_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.graphql_profile_service.service.PersistedQueryStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Automatic persisted queries: el hash tiene que corresponder al texto enviado,
+ * tanto al ejecutar (CachingDocumentProvider) como al clasificar
+ * (PublicGraphQLOperationFilter)
+ */
+class CachingDocumentProviderTest {
+
+    private static final String SCHEMA = """
+            type Query {
+              publicGenres: String
+              privatePreferences: String
+            }
+            """;
+
+    private static final String PUBLIC_QUERY = "{ publicGenres }";
+    private static final String PRIVATE_QUERY = "{ privatePreferences }";
+
+    private final AtomicInteger privateCalls = new AtomicInteger();
+
+    private PersistedQueryStore persistedQueryStore;
+    private SimpleMeterRegistry meterRegistry;
+    private GraphQL graphQL;
+
+    @BeforeEach
+    void setUp() {
+        persistedQueryStore = mock(PersistedQueryStore.class);
+        when(persistedQueryStore.find(anyString())).thenReturn(Optional.empty());
+        meterRegistry = new SimpleMeterRegistry();
+
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type
+                        .dataFetcher("publicGenres", environment -> "rock")
+                        .dataFetcher("privatePreferences", environment -> {
+                            privateCalls.incrementAndGet();
+                            return "secret";
+                        }))
+                .build();
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SCHEMA), wiring);
+
+        graphQL = GraphQL.newGraphQL(schema)
+                .preparsedDocumentProvider(new CachingDocumentProvider(persistedQueryStore, meterRegistry, 100, true))
+                .build();
+    }
+
+    @Test
+    void registeredQueryIsServedByHash() {
+        ExecutionResult registered = execute(PRIVATE_QUERY, CachingDocumentProvider.sha256(PRIVATE_QUERY));
+        assertThat(registered.getErrors()).isEmpty();
+        verify(persistedQueryStore).save(CachingDocumentProvider.sha256(PRIVATE_QUERY), PRIVATE_QUERY);
+
+        ExecutionResult byHash = execute(null, CachingDocumentProvider.sha256(PRIVATE_QUERY));
+        assertThat(byHash.getErrors()).isEmpty();
+        assertThat(byHash.<Map<String, Object>>getData()).containsEntry("privatePreferences", "secret");
+    }
+
+    @Test
+    void hashOfAnotherCachedQueryIsRejected() {
+        String privateHash = CachingDocumentProvider.sha256(PRIVATE_QUERY);
+        execute(PRIVATE_QUERY, privateHash);
+        privateCalls.set(0);
+
+        // Texto público con el hash de una query protegida ya cacheada
+        ExecutionResult result = execute(PUBLIC_QUERY, privateHash);
+
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("PersistedQueryIdInvalid");
+        assertThat(result.<Object>getData()).isNull();
+        assertThat(privateCalls).hasValue(0);
+        assertThat(meterRegistry.counter("graphql.apq.requests", "result", "invalid").count()).isEqualTo(1);
+        verify(persistedQueryStore, never()).save(privateHash, PUBLIC_QUERY);
+    }
+
+    @Test
+    void filterClassifiesTheTextOnlyWhenTheHashMatches() throws Exception {
+        Map<String, String> registered = Map.of(CachingDocumentProvider.sha256(PUBLIC_QUERY), PUBLIC_QUERY);
+        PublicGraphQLOperationFilter filter = new PublicGraphQLOperationFilter(new ObjectMapper(),
+                Set.of("publicGenres"), 10_000, hash -> Optional.ofNullable(registered.get(hash)));
+
+        assertThat(isPublic(filter, PUBLIC_QUERY, null)).isTrue();
+        assertThat(isPublic(filter, PUBLIC_QUERY, CachingDocumentProvider.sha256(PUBLIC_QUERY))).isTrue();
+        assertThat(isPublic(filter, null, CachingDocumentProvider.sha256(PUBLIC_QUERY))).isTrue();
+
+        // Mismo texto público, pero con el hash de la query protegida: va autenticada
+        assertThat(isPublic(filter, PUBLIC_QUERY, CachingDocumentProvider.sha256(PRIVATE_QUERY))).isFalse();
+        assertThat(isPublic(filter, null, CachingDocumentProvider.sha256(PRIVATE_QUERY))).isFalse();
+    }
+
+    private ExecutionResult execute(String query, String hash) {
+        return graphQL.execute(ExecutionInput.newExecutionInput()
+                .query(query != null ? query : "")
+                .extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)))
+                .build());
+    }
+
+    private static boolean isPublic(PublicGraphQLOperationFilter filter, String query, String hash)
+            throws Exception {
+        Map<String, Object> body = new HashMap<>();
+        if (query != null) {
+            body.put("query", query);
+        }
+        if (hash != null) {
+            body.put("extensions", Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)));
+        }
+
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setServletPath("/graphql");
+        request.setContent(new ObjectMapper().writeValueAsString(body).getBytes(StandardCharsets.UTF_8));
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return PublicGraphQLOperationFilter.PUBLIC_OPERATION.matches(request);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.graphql_profile_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.graphql_profile_service.config.ConcurrencyLimitFilter.Lane;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+/**
+ * ConcurrencyLimitFilter con un límite fijo de 1 por carril
+ */
+class ConcurrencyLimitFilterTest {
+
+    // Atributo que pone PublicGraphQLOperationFilter en las operaciones públicas
+    private static final String PUBLIC_OPERATION_ATTRIBUTE = PublicGraphQLOperationFilter.class.getName() + ".public";
+
+    private static final AdaptiveConcurrencyLimit.Settings SINGLE_SLOT = new AdaptiveConcurrencyLimit.Settings(
+            1, 1, 1, 1.5, 0.2, Duration.ofSeconds(1));
+
+    private final AtomicInteger executed = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ConcurrencyLimitFilter(Map.of(Lane.PUBLIC, SINGLE_SLOT, Lane.AUTHENTICATED, SINGLE_SLOT),
+                Duration.ofSeconds(2), meterRegistry);
+    }
+
+    @Test
+    void synchronousRequestsReleaseTheirSlotOnReturn() throws Exception {
+        assertThat(run(request(false), this::execute).getStatus()).isEqualTo(200);
+        assertThat(run(request(false), this::execute).getStatus()).isEqualTo(200);
+
+        assertThat(executed).hasValue(2);
+        assertThat(inFlight(Lane.AUTHENTICATED)).isZero();
+    }
+
+    @Test
+    void asyncRequestHoldsItsSlotUntilItCompletes() throws Exception {
+        MockHttpServletRequest asyncRequest = request(false);
+        run(asyncRequest, (request, response) -> {
+            executed.incrementAndGet();
+            request.startAsync();
+        });
+
+        // El hilo del filtro ya volvió, pero el request sigue en curso
+        assertThat(inFlight(Lane.AUTHENTICATED)).isEqualTo(1);
+
+        MockHttpServletResponse shed = run(request(false), this::execute);
+        assertThat(shed.getStatus()).isEqualTo(503);
+        assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(shed.getContentAsString()).contains("OVERLOADED");
+        assertThat(meterRegistry.counter("graphql.concurrency.shed", "lane", "authenticated").count())
+                .isEqualTo(1);
+
+        ((MockAsyncContext) asyncRequest.getAsyncContext()).complete();
+
+        assertThat(inFlight(Lane.AUTHENTICATED)).isZero();
+        assertThat(run(request(false), this::execute).getStatus()).isEqualTo(200);
+        assertThat(executed).hasValue(2);
+    }
+
+    @Test
+    void failedRequestStillReleasesItsSlot() throws Exception {
+        try {
+            run(request(false), (request, response) -> {
+                throw new IllegalStateException("boom");
+            });
+        } catch (IllegalStateException expected) {
+            // La excepción sigue su camino
+        }
+
+        assertThat(inFlight(Lane.AUTHENTICATED)).isZero();
+    }
+
+    @Test
+    void publicLaneDoesNotTakeAuthenticatedSlots() throws Exception {
+        MockHttpServletRequest publicRequest = request(true);
+        run(publicRequest, (request, response) -> request.startAsync());
+
+        assertThat(run(request(true), this::execute).getStatus()).isEqualTo(503);
+        assertThat(run(request(false), this::execute).getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.counter("graphql.concurrency.shed", "lane", "public").count()).isEqualTo(1);
+    }
+
+    private MockHttpServletRequest request(boolean publicOperation) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setAsyncSupported(true);
+        if (publicOperation) {
+            request.setAttribute(PUBLIC_OPERATION_ATTRIBUTE, Boolean.TRUE);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private void execute(ServletRequest request, ServletResponse response) {
+        executed.incrementAndGet();
+    }
+
+    private int inFlight(Lane lane) {
+        return (int) meterRegistry.get("graphql.concurrency.inflight")
+                .tag("lane", lane.name().toLowerCase(Locale.ROOT))
+                .gauge()
+                .value();
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.graphql_profile_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Token bucket de costo por cliente (600 por minuto = 10 por segundo)
+ */
+class CostBudgetTest {
+
+    private static final long BUDGET_PER_MINUTE = 600;
+
+    private long start;
+    private QueryCostConfig.CostBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        budget = new QueryCostConfig.CostBudget(BUDGET_PER_MINUTE);
+        start = System.nanoTime();
+    }
+
+    @Test
+    void fullBudgetIsAvailableAsABurst() {
+        assertThat(budget.tryAcquire(400, start)).isZero();
+        assertThat(budget.tryAcquire(200, start)).isZero();
+
+        // Sin saldo: falta 1, que se junta en 0.1s (se redondea a 1s)
+        assertThat(budget.tryAcquire(1, start)).isEqualTo(1);
+    }
+
+    @Test
+    void refillsProportionallyToElapsedTime() {
+        assertThat(budget.tryAcquire(600, start)).isZero();
+
+        // 30s después hay 300
+        assertThat(budget.tryAcquire(301, at(30))).isEqualTo(1);
+        assertThat(budget.tryAcquire(300, at(30))).isZero();
+    }
+
+    @Test
+    void retryAfterIsTheTimeUntilTheCostIsCovered() {
+        assertThat(budget.tryAcquire(600, start)).isZero();
+
+        // 300 de 600 por minuto: 30s
+        assertThat(budget.tryAcquire(300, start)).isEqualTo(30);
+    }
+
+    @Test
+    void refillNeverExceedsTheCapacity() {
+        assertThat(budget.tryAcquire(600, start)).isZero();
+
+        // Diez minutos inactivo no acumulan más de un minuto de presupuesto
+        assertThat(budget.tryAcquire(600, at(600))).isZero();
+        assertThat(budget.tryAcquire(1, at(600))).isEqualTo(1);
+    }
+
+    @Test
+    void operationLargerThanTheBudgetPassesOnlyWithAFullBucketAndLeavesDebt() {
+        assertThat(budget.tryAcquire(1000, start)).isZero();
+
+        // Quedó en -400: para volver a tener 600 hacen falta 1000, es decir 100s
+        assertThat(budget.tryAcquire(1000, start)).isEqualTo(100);
+
+        // Al minuto el saldo es 200
+        assertThat(budget.tryAcquire(201, at(60))).isEqualTo(1);
+        assertThat(budget.tryAcquire(200, at(60))).isZero();
+    }
+
+    private long at(long seconds) {
+        return start + TimeUnit.SECONDS.toNanos(seconds);
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.graphql_profile_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.schema.DataFetcher;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Instrumentation de deadline sobre un schema mínimo (sin Spring)
+ */
+class DeadlineConfigTest {
+
+    private static final String SCHEMA = """
+            type Query {
+              slow: String
+              greeting: String
+              hasDeadline: Boolean
+              aborted: String
+            }
+            """;
+
+    private final AtomicInteger greetingCalls = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+    private GraphQL graphQL;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        DataFetcher<String> slow = environment -> {
+            Thread.sleep(300);
+            return "slow";
+        };
+        DataFetcher<String> greeting = environment -> {
+            greetingCalls.incrementAndGet();
+            return "hola";
+        };
+        DataFetcher<Boolean> hasDeadline = environment -> RequestDeadline.current() != null;
+        // Simula un request HTTP abortado porque el deadline venció mientras esperaba
+        DataFetcher<String> aborted = environment -> {
+            Thread.sleep(300);
+            throw new IllegalStateException("Connection aborted");
+        };
+
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .type("Query", type -> type
+                        .dataFetcher("slow", slow)
+                        .dataFetcher("greeting", greeting)
+                        .dataFetcher("hasDeadline", hasDeadline)
+                        .dataFetcher("aborted", aborted))
+                .build();
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SCHEMA), wiring);
+
+        graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new DeadlineConfig().requestDeadlineInstrumentation(meterRegistry))
+                .build();
+    }
+
+    @Test
+    void expiredDeadlineSkipsTheFieldAndReturnsNullWithAnError() {
+        ExecutionResult result = execute("{ greeting }", RequestDeadline.after(Duration.ZERO));
+
+        assertThat(result.<Map<String, Object>>getData()).containsEntry("greeting", null);
+        assertThat(greetingCalls).hasValue(0);
+        assertDeadlineExceeded(result.getErrors(), "greeting");
+        assertThat(meterRegistry.counter("graphql.deadline.exceeded", "field", "Query.greeting").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void fieldsResolvedBeforeTheDeadlineKeepTheirValue() {
+        ExecutionResult result = execute("{ slow greeting }", RequestDeadline.after(Duration.ofMillis(150)));
+
+        // Resultado parcial: slow terminó, greeting ya no llegaba a tiempo
+        assertThat(result.<Map<String, Object>>getData())
+                .containsEntry("slow", "slow")
+                .containsEntry("greeting", null);
+        assertDeadlineExceeded(result.getErrors(), "greeting");
+    }
+
+    @Test
+    void failureCausedByTheDeadlineIsReportedAsDeadlineExceeded() {
+        ExecutionResult result = execute("{ aborted }", RequestDeadline.after(Duration.ofMillis(100)));
+
+        assertThat(result.<Map<String, Object>>getData()).containsEntry("aborted", null);
+        assertDeadlineExceeded(result.getErrors(), "aborted");
+    }
+
+    @Test
+    void fetcherRunsWithTheDeadlineActiveOnItsThread() {
+        ExecutionResult result = execute("{ hasDeadline greeting }", RequestDeadline.after(Duration.ofSeconds(5)));
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(result.<Map<String, Object>>getData())
+                .containsEntry("hasDeadline", true)
+                .containsEntry("greeting", "hola");
+        assertThat(RequestDeadline.current()).isNull();
+    }
+
+    @Test
+    void withoutDeadlineFieldsRunUntouched() {
+        ExecutionResult result = graphQL.execute("{ hasDeadline }");
+
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(result.<Map<String, Object>>getData()).containsEntry("hasDeadline", false);
+    }
+
+    private ExecutionResult execute(String query, RequestDeadline deadline) {
+        return graphQL.execute(ExecutionInput.newExecutionInput()
+                .query(query)
+                .graphQLContext(Map.of(RequestDeadline.ATTRIBUTE, deadline))
+                .build());
+    }
+
+    private static void assertDeadlineExceeded(List<GraphQLError> errors, String field) {
+        assertThat(errors).hasSize(1);
+        Map<String, Object> error = errors.get(0).toSpecification();
+        assertThat(error).containsEntry("path", List.of(field));
+        assertThat(error.get("extensions")).isEqualTo(Map.of("classification", "DEADLINE_EXCEEDED"));
+    }
+}
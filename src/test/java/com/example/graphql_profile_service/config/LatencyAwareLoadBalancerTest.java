@@ -0,0 +1,207 @@
+package com.example.graphql_profile_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultRequestContext;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+/**
+ * LatencyAwareLoadBalancer sobre una lista simulada de instancias de user-service
+ * (reloj y aleatoriedad controlados)
+ */
+class LatencyAwareLoadBalancerTest {
+
+    private static final String SERVICE_ID = "user-service";
+
+    private final ServiceInstance fast = instance("fast");
+    private final ServiceInstance medium = instance("medium");
+    private final ServiceInstance slow = instance("slow");
+    private final List<ServiceInstance> instances = List.of(fast, medium, slow);
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(1));
+
+    private LatencyAwareLoadBalancer loadBalancer;
+
+    @BeforeEach
+    void setUp() {
+        loadBalancer = new LatencyAwareLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider(SERVICE_ID, fast, medium, slow),
+                SERVICE_ID,
+                new LatencyAwareLoadBalancer.Settings(Duration.ofSeconds(10), Duration.ofMillis(100), 3,
+                        Duration.ofSeconds(30)),
+                clock::get,
+                new Random(42));
+    }
+
+    @Test
+    void slowInstanceStopsReceivingTrafficOnceItsLatencyIsKnown() {
+        Map<String, Integer> latencies = Map.of("fast", 20, "medium", 40, "slow", 2000);
+
+        Map<String, Integer> picks = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            ServiceInstance chosen = loadBalancer.choose(instances);
+            picks.merge(chosen.getInstanceId(), 1, Integer::sum);
+            complete(chosen, latencies.get(chosen.getInstanceId()), HttpStatus.OK);
+        }
+
+        // Solo el warm-up (y algún sondeo) llega a la instancia lenta
+        assertThat(picks.getOrDefault("slow", 0)).isLessThan(20);
+        assertThat(picks.get("fast")).isGreaterThan(picks.get("medium"));
+    }
+
+    @Test
+    void outstandingRequestsSpreadLoadAwayFromTheFastestInstance() {
+        complete(fast, 20, HttpStatus.OK);
+        complete(medium, 40, HttpStatus.OK);
+        complete(slow, 40, HttpStatus.OK);
+
+        // Muchos requests en curso en la instancia rápida: su costo supera al de las demás
+        for (int i = 0; i < 10; i++) {
+            loadBalancer.onStartRequest(request(), new DefaultResponse(fast));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(loadBalancer.choose(instances)).isNotEqualTo(fast);
+        }
+    }
+
+    @Test
+    void instanceIsEjectedAfterConsecutiveFailuresAndReturnsLater() {
+        for (int i = 0; i < 3; i++) {
+            complete(medium, 10, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            assertThat(loadBalancer.choose(instances)).isNotEqualTo(medium);
+        }
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        boolean pickedAgain = false;
+        for (int i = 0; i < 200 && !pickedAgain; i++) {
+            pickedAgain = loadBalancer.choose(instances).equals(medium);
+        }
+        assertThat(pickedAgain).isTrue();
+    }
+
+    @Test
+    void connectionErrorsCountAsFailuresAndSuccessResetsTheStreak() {
+        failWithException(slow);
+        failWithException(slow);
+        complete(slow, 10, HttpStatus.OK);
+        failWithException(slow);
+        failWithException(slow);
+
+        assertThat(loadBalancer.statsFor(slow).isEjected(clock.get())).isFalse();
+
+        failWithException(slow);
+        assertThat(loadBalancer.statsFor(slow).isEjected(clock.get())).isTrue();
+    }
+
+    @Test
+    void allInstancesEjectedStillRoutesTraffic() {
+        for (ServiceInstance instance : instances) {
+            for (int i = 0; i < 3; i++) {
+                failWithException(instance);
+            }
+        }
+
+        assertThat(loadBalancer.choose(instances)).isIn(instances);
+    }
+
+    @Test
+    void idleInstanceLatencyDecaysBackTowardsDefault() {
+        complete(slow, 2000, HttpStatus.OK);
+        double afterPeak = loadBalancer.statsFor(slow).latencyNanos(clock.get());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        double afterIdle = loadBalancer.statsFor(slow).latencyNanos(clock.get());
+
+        assertThat(afterPeak).isEqualTo(TimeUnit.MILLISECONDS.toNanos(2000), offset(1.0));
+        assertThat(afterIdle).isLessThan(TimeUnit.MILLISECONDS.toNanos(110));
+    }
+
+    @Test
+    void hedgeNeverGoesToThePrimaryInstance() {
+        for (int i = 0; i < 50; i++) {
+            HedgeRouting primary = new HedgeRouting();
+            ServiceInstance first = primary.call(() -> loadBalancer.choose(request()).block().getServer());
+            assertThat(primary.canHedge()).isTrue();
+
+            HedgeRouting hedge = primary.forHedge();
+            ServiceInstance second = hedge.call(() -> loadBalancer.choose(request()).block().getServer());
+            assertThat(second).isNotEqualTo(first);
+        }
+    }
+
+    @Test
+    void singleInstanceLeavesNoAlternativeForTheHedge() {
+        HedgeRouting primary = new HedgeRouting();
+        assertThat(loadBalancer.choose(List.of(fast), primary)).isEqualTo(fast);
+        assertThat(primary.canHedge()).isFalse();
+
+        // Si el hedge saliera igual, no hay otra instancia a la que mandarlo
+        assertThat(loadBalancer.choose(List.of(fast), primary.forHedge())).isNull();
+    }
+
+    @Test
+    void reactiveChooseUsesTheInstanceListSupplier() {
+        Response<ServiceInstance> response = loadBalancer.choose(request()).block();
+
+        assertThat(response).isNotNull();
+        assertThat(response.hasServer()).isTrue();
+        assertThat(response.getServer()).isIn(instances);
+    }
+
+    private void complete(ServiceInstance instance, long latencyMillis, HttpStatus status) {
+        Request<Object> request = request();
+        Response<ServiceInstance> lbResponse = new DefaultResponse(instance);
+
+        loadBalancer.onStartRequest(request, lbResponse);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+
+        ResponseData responseData = new ResponseData(status, new HttpHeaders(), null, null);
+        loadBalancer.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, lbResponse,
+                responseData));
+    }
+
+    private void failWithException(ServiceInstance instance) {
+        Request<Object> request = request();
+        Response<ServiceInstance> lbResponse = new DefaultResponse(instance);
+
+        loadBalancer.onStartRequest(request, lbResponse);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(5));
+        loadBalancer.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED,
+                new IOException("Connection refused"), request, lbResponse));
+    }
+
+    private static Request<Object> request() {
+        return new DefaultRequest<>(new DefaultRequestContext());
+    }
+
+    private static ServiceInstance instance(String id) {
+        return new DefaultServiceInstance(id, SERVICE_ID, id + ".internal", 8081, false);
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.graphql_profile_service.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimplePerformantInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+
+/**
+ * Costo y profundidad estáticos sobre un schema con la directiva @cost
+ * (se analiza en beginExecuteOperation, igual que QueryCostConfig)
+ */
+class QueryCostAnalyzerTest {
+
+    private static final String SCHEMA = """
+            directive @cost(weight: Int!, multiplier: Int = 1) on FIELD_DEFINITION
+
+            type Query {
+              cheap: String
+              user(id: Int): User @cost(weight: 10)
+              genres: [Genre] @cost(weight: 2, multiplier: 20)
+            }
+
+            type User {
+              name: String
+              preferences: Preference @cost(weight: 5)
+            }
+
+            type Preference {
+              artists: [Artist] @cost(weight: 3, multiplier: 40)
+            }
+
+            type Artist {
+              name: String
+              related: [Artist] @cost(weight: 1, multiplier: 2000000000)
+            }
+
+            type Genre {
+              name: String
+            }
+            """;
+
+    private final AtomicReference<QueryCostAnalyzer.QueryCost> analyzed = new AtomicReference<>();
+
+    private GraphQL graphQL;
+
+    @BeforeEach
+    void setUp() {
+        GraphQLSchema schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(SCHEMA),
+                RuntimeWiring.newRuntimeWiring().build());
+
+        graphQL = GraphQL.newGraphQL(schema)
+                .instrumentation(new SimplePerformantInstrumentation() {
+                    @Override
+                    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+                            InstrumentationExecuteOperationParameters parameters, InstrumentationState state) {
+                        analyzed.set(QueryCostAnalyzer.analyze(parameters.getExecutionContext()));
+                        return super.beginExecuteOperation(parameters, state);
+                    }
+                })
+                .build();
+    }
+
+    @Test
+    void fieldsWithoutDirectiveCostOne() {
+        assertThat(analyze("{ cheap }")).isEqualTo(new QueryCostAnalyzer.QueryCost(1, 1));
+    }
+
+    @Test
+    void weightAndListMultiplierApplyToChildren() {
+        // user: 10 + name 1
+        assertThat(analyze("{ user(id: 1) { name } }")).isEqualTo(new QueryCostAnalyzer.QueryCost(11, 2));
+        // genres: 2 + 20 * name 1
+        assertThat(analyze("{ genres { name } }")).isEqualTo(new QueryCostAnalyzer.QueryCost(22, 2));
+        // user 10 + (name 1 + preferences 5 + (artists 3 + 40 * name 1))
+        assertThat(analyze("{ user { name preferences { artists { name } } } }"))
+                .isEqualTo(new QueryCostAnalyzer.QueryCost(59, 4));
+    }
+
+    @Test
+    void eachAliasIsCountedSeparately() {
+        QueryCostAnalyzer.QueryCost one = analyze("{ user(id: 1) { name } }");
+        QueryCostAnalyzer.QueryCost three = analyze("""
+                {
+                  a: user(id: 1) { name }
+                  b: user(id: 2) { name }
+                  c: user(id: 3) { name }
+                }
+                """);
+
+        assertThat(three.cost()).isEqualTo(3 * one.cost());
+        assertThat(three.depth()).isEqualTo(one.depth());
+    }
+
+    @Test
+    void fragmentsAreCountedOncePerSpread() {
+        QueryCostAnalyzer.QueryCost inline = analyze("""
+                {
+                  a: user(id: 1) { name preferences { artists { name } } }
+                  b: user(id: 2) { name preferences { artists { name } } }
+                }
+                """);
+        QueryCostAnalyzer.QueryCost withFragments = analyze("""
+                query Users {
+                  a: user(id: 1) { ...UserFields }
+                  b: user(id: 2) { ... on User { ...UserFields } }
+                }
+
+                fragment UserFields on User {
+                  name
+                  preferences { artists { name } }
+                }
+                """);
+
+        assertThat(withFragments).isEqualTo(inline);
+        assertThat(withFragments).isEqualTo(new QueryCostAnalyzer.QueryCost(118, 4));
+    }
+
+    @Test
+    void introspectionIsFree() {
+        assertThat(analyze("{ __typename cheap __schema { types { name fields { name } } } }"))
+                .isEqualTo(new QueryCostAnalyzer.QueryCost(1, 1));
+        assertThat(analyze("{ __type(name: \"User\") { name } }"))
+                .isEqualTo(new QueryCostAnalyzer.QueryCost(0, 0));
+    }
+
+    @Test
+    void hugeMultipliersSaturateInsteadOfOverflowing() {
+        QueryCostAnalyzer.QueryCost cost = analyze("""
+                {
+                  user {
+                    preferences {
+                      artists { related { related { related { name } } } }
+                    }
+                  }
+                }
+                """);
+
+        assertThat(cost.cost()).isEqualTo(Long.MAX_VALUE);
+        assertThat(cost.depth()).isEqualTo(7);
+
+        // Dos campos saturados tampoco se dan vuelta al sumarse
+        QueryCostAnalyzer.QueryCost twice = analyze("""
+                {
+                  a: user { preferences { artists { related { related { related { name } } } } } }
+                  b: user { preferences { artists { related { related { related { name } } } } } }
+                }
+                """);
+        assertThat(twice.cost()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void onlyTheSelectedOperationIsAnalyzed() {
+        String document = """
+                query Cheap { cheap }
+                query Expensive { genres { name } }
+                """;
+
+        graphQL.execute(builder -> builder.query(document).operationName("Cheap"));
+        assertThat(analyzed.get()).isEqualTo(new QueryCostAnalyzer.QueryCost(1, 1));
+
+        graphQL.execute(builder -> builder.query(document).operationName("Expensive"));
+        assertThat(analyzed.get()).isEqualTo(new QueryCostAnalyzer.QueryCost(22, 2));
+    }
+
+    private QueryCostAnalyzer.QueryCost analyze(String query) {
+        analyzed.set(null);
+        ExecutionResult result = graphQL.execute(query);
+        assertThat(result.getErrors()).isEmpty();
+        return analyzed.get();
+    }
+}
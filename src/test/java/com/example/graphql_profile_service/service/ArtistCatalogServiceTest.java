@@ -0,0 +1,71 @@
+package com.example.graphql_profile_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.graphql_profile_service.dto.FavoriteArtistRowDTO;
+import com.example.graphql_profile_service.repository.ArtistRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Contadores de lecturas por artista del catálogo
+ */
+class ArtistCatalogServiceTest {
+
+    private ArtistCatalogService catalogService;
+
+    @BeforeEach
+    void setUp() {
+        catalogService = new ArtistCatalogService(
+                mock(ArtistRepository.class), mock(SpotifyService.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(catalogService, "staleAfter", Duration.ofDays(7));
+        ReflectionTestUtils.setField(catalogService, "countReads", true);
+        ReflectionTestUtils.setField(catalogService, "readCountsMaximumSize", 100L);
+        catalogService.initializeReadCounts();
+    }
+
+    @Test
+    void readsAreCountedAndDecayed() {
+        catalogService.resolveFavorites(List.of(row("a"), row("a"), row("b")));
+
+        assertThat(catalogService.decayReadCounts()).containsEntry("a", 2L).containsEntry("b", 1L);
+        // "a" queda con la mitad; "b" llega a cero y sale de la tabla
+        assertThat(catalogService.decayReadCounts()).containsOnlyKeys("a").containsEntry("a", 1L);
+    }
+
+    @Test
+    void readCountsAreBounded() {
+        catalogService.resolveFavorites(IntStream.range(0, 1000).mapToObj(i -> row("artist-" + i)).toList());
+
+        Cache<?, ?> readCounts = (Cache<?, ?>) ReflectionTestUtils.getField(catalogService, "readCounts");
+        readCounts.cleanUp();
+        assertThat(readCounts.estimatedSize()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void readsAreNotCountedWhenRefreshIsDisabled() {
+        ReflectionTestUtils.setField(catalogService, "countReads", false);
+
+        catalogService.resolveFavorites(List.of(row("a"), row("b")));
+
+        assertThat(catalogService.decayReadCounts()).isEmpty();
+    }
+
+    private static FavoriteArtistRowDTO row(String spotifyId) {
+        return FavoriteArtistRowDTO.builder()
+                .spotifyId(spotifyId)
+                .name("Artist " + spotifyId)
+                .refreshedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.graphql_profile_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.graphql_profile_service.model.PersistedQuery;
+import com.example.graphql_profile_service.repository.PersistedQueryRepository;
+
+/**
+ * Límites de la tabla persisted_queries (vencimiento y máximo de filas)
+ */
+class PersistedQueryStoreTest {
+
+    private PersistedQueryRepository repository;
+    private PersistedQueryStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PersistedQueryRepository.class);
+        when(repository.existsById(anyString())).thenReturn(false);
+
+        store = new PersistedQueryStore(repository);
+        ReflectionTestUtils.setField(store, "cacheSize", 100L);
+        ReflectionTestUtils.setField(store, "maxQueryLength", 1000);
+        ReflectionTestUtils.setField(store, "negativeTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(store, "ttl", Duration.ofDays(30));
+        ReflectionTestUtils.setField(store, "maxEntries", 2L);
+        store.initializeCaches();
+    }
+
+    @Test
+    void stopsWritingOnceTheTableIsFull() {
+        store.save("a", "{ a }");
+        store.save("b", "{ b }");
+        store.save("c", "{ c }");
+
+        verify(repository, times(2)).save(any(PersistedQuery.class));
+        // La que no entró en la tabla se sigue resolviendo desde memoria
+        assertThat(store.find("c")).contains("{ c }");
+    }
+
+    @Test
+    void purgeDeletesExpiredQueriesAndFreesRoom() {
+        store.save("a", "{ a }");
+        store.save("b", "{ b }");
+
+        when(repository.deleteRegisteredBefore(any())).thenReturn(2);
+        when(repository.count()).thenReturn(0L);
+        store.purgeExpired();
+
+        ArgumentCaptor<LocalDateTime> cutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).deleteRegisteredBefore(cutoff.capture());
+        assertThat(cutoff.getValue()).isBefore(LocalDateTime.now().minusDays(29));
+
+        store.save("c", "{ c }");
+        verify(repository, times(3)).save(any(PersistedQuery.class));
+    }
+
+    @Test
+    void purgeCountsRowsRegisteredByOtherInstances() {
+        when(repository.count()).thenReturn(2L);
+        store.purgeExpired();
+
+        store.save("a", "{ a }");
+
+        verify(repository, never()).save(any(PersistedQuery.class));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.graphql_profile_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.graphql_profile_service.service.SpotifyRequestScheduler.Lane;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import se.michaelthelin.spotify.exceptions.detailed.TooManyRequestsException;
+
+/**
+ * Token bucket y pausas por 429 del planificador de requests a Spotify
+ */
+class SpotifyRequestSchedulerTest {
+
+    private SpotifyRequestScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new SpotifyRequestScheduler(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "requestsPerSecond", 100.0);
+        ReflectionTestUtils.setField(scheduler, "burst", 20.0);
+        ReflectionTestUtils.setField(scheduler, "interactiveWaitBudget", Duration.ofMillis(300));
+        ReflectionTestUtils.setField(scheduler, "backgroundWaitBudget", Duration.ofMillis(300));
+    }
+
+    @Test
+    void throttledBackgroundCallPausesTheInteractiveLane() throws Exception {
+        assertThatThrownBy(() -> scheduler.execute(Lane.BACKGROUND, () -> {
+            throw new TooManyRequestsException("Too Many Requests", 2);
+        })).isInstanceOf(SpotifyRequestScheduler.ThrottledException.class);
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> scheduler.execute(Lane.INTERACTIVE, calls::incrementAndGet))
+                .isInstanceOf(SpotifyRequestScheduler.ThrottledException.class);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void throttleDrainsTheSharedBucket() throws Exception {
+        ReflectionTestUtils.setField(scheduler, "backgroundWaitBudget", Duration.ofSeconds(5));
+        AtomicInteger attempts = new AtomicInteger();
+
+        // El 429 del primer intento pausa 1s; el reintento sale del bucket vacío
+        String result = scheduler.execute(Lane.BACKGROUND, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new TooManyRequestsException("Too Many Requests", 1);
+            }
+            return "ok";
+        });
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts).hasValue(2);
+        assertThat((double) ReflectionTestUtils.getField(scheduler, "availableTokens")).isLessThan(1.0);
+    }
+
+    @Test
+    void unthrottledCallsUseTheBurst() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            assertThat(scheduler.execute(Lane.INTERACTIVE, () -> "ok")).isEqualTo("ok");
+        }
+    }
+}
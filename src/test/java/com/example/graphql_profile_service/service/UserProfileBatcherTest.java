@@ -0,0 +1,147 @@
+package com.example.graphql_profile_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import com.example.graphql_profile_service.config.RequestDeadline;
+import com.example.graphql_profile_service.dto.UserProfileDTO;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Micro-batching de perfiles con un UserServiceClient simulado
+ */
+class UserProfileBatcherTest {
+
+    private final AtomicReference<RequestDeadline> deadlineSeen = new AtomicReference<>();
+
+    private UserServiceClient userServiceClient;
+    private UserProfileBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        userServiceClient = mock(UserServiceClient.class);
+        when(userServiceClient.getUserProfile(1)).thenAnswer(invocation -> {
+            deadlineSeen.set(RequestDeadline.current());
+            return profile(1);
+        });
+        when(userServiceClient.getUserProfiles(anyCollection())).thenAnswer(invocation -> {
+            deadlineSeen.set(RequestDeadline.current());
+            Collection<Integer> userIds = invocation.getArgument(0);
+            return userIds.stream().map(UserProfileBatcherTest::profile).toList();
+        });
+
+        batcher = new UserProfileBatcher(userServiceClient, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(batcher, "enabled", true);
+        ReflectionTestUtils.setField(batcher, "maxBatchSize", 64);
+        // Ventana larga: los lookups del test salen en el mismo lote
+        ReflectionTestUtils.setField(batcher, "window", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(batcher, "parallelism", 2);
+        ReflectionTestUtils.setField(batcher, "waitTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(batcher, "retryEndpointAfter", Duration.ofMinutes(10));
+        batcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.stop();
+    }
+
+    @Test
+    void callOnTheBatchThreadRunsUnderTheCallersDeadline() {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofSeconds(5));
+
+        UserProfileDTO profile = deadline.call(() -> batcher.getUserProfile(1));
+
+        assertThat(profile.getUserId()).isEqualTo(1);
+        assertThat(deadlineSeen.get()).isSameAs(deadline);
+    }
+
+    @Test
+    void sharedBatchRunsUnderTheLatestDeadline() throws Exception {
+        RequestDeadline tight = RequestDeadline.after(Duration.ofSeconds(2));
+        RequestDeadline loose = RequestDeadline.after(Duration.ofSeconds(6));
+
+        CompletableFuture<UserProfileDTO> first = loose.call(() -> batcher.load(1));
+        CompletableFuture<UserProfileDTO> second = tight.call(() -> batcher.load(2));
+
+        assertThat(List.of(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS)))
+                .extracting(UserProfileDTO::getUserId)
+                .containsExactly(1, 2);
+        // Con el más temprano, el otro llamador se quedaría sin respuesta teniendo tiempo
+        assertThat(deadlineSeen.get()).isSameAs(loose);
+    }
+
+    @Test
+    void lookupWithoutDeadlineLeavesTheCallUnbounded() throws Exception {
+        CompletableFuture<UserProfileDTO> bounded = RequestDeadline.after(Duration.ofSeconds(5))
+                .call(() -> batcher.load(1));
+        CompletableFuture<UserProfileDTO> unbounded = batcher.load(2);
+
+        bounded.get(5, TimeUnit.SECONDS);
+        unbounded.get(5, TimeUnit.SECONDS);
+
+        assertThat(deadlineSeen.get()).isNull();
+    }
+
+    @Test
+    void singleUserIdIsFetchedInTheFirstPoolTask() throws Exception {
+        assertThat(batcher.getUserProfile(1).getUserId()).isEqualTo(1);
+
+        assertThat(poolTasks()).isEqualTo(1);
+    }
+
+    @Test
+    void fallbackFanOutRunsTheFirstCallInlineAndQueuesTheRest() throws Exception {
+        when(userServiceClient.getUserProfiles(anyCollection()))
+                .thenThrow(new UserServiceClient.BatchNotSupportedException(
+                        new HttpClientErrorException(HttpStatus.NOT_FOUND)));
+        when(userServiceClient.getUserProfile(anyInt()))
+                .thenAnswer(invocation -> profile(invocation.getArgument(0)));
+
+        List<CompletableFuture<UserProfileDTO>> futures = List.of(batcher.load(1), batcher.load(2), batcher.load(3));
+        for (CompletableFuture<UserProfileDTO> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        // Tarea del lote (con la primera llamada) + una por cada userId restante
+        assertThat(poolTasks()).isEqualTo(3);
+        verify(userServiceClient, times(3)).getUserProfile(anyInt());
+    }
+
+    /**
+     * Tareas terminadas en el pool del batcher (el contador sube al terminar cada tarea)
+     */
+    private long poolTasks() throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(batcher, "executor");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (executor.getActiveCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        return executor.getCompletedTaskCount();
+    }
+
+    private static UserProfileDTO profile(Integer userId) {
+        return UserProfileDTO.builder().userId(userId).email("user-" + userId + "@example.com").build();
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.graphql_profile_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.example.graphql_profile_service.dto.AccountStatusDTO;
+import com.example.graphql_profile_service.dto.ProfileDTO;
+import com.example.graphql_profile_service.dto.ProfileLocationDTO;
+import com.example.graphql_profile_service.dto.UserProfileDTO;
+import com.example.graphql_profile_service.model.Profile;
+import com.example.graphql_profile_service.model.UserReplica;
+import com.example.graphql_profile_service.repository.ProfileRepository;
+import com.example.graphql_profile_service.repository.ReplicationWatermarkRepository;
+import com.example.graphql_profile_service.repository.UserReplicaRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Aplicación de cambios a la réplica de usuarios contra una base H2 en memoria
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class UserReplicaServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserReplicaRepository userReplicaRepository;
+
+    @Autowired
+    private ReplicationWatermarkRepository watermarkRepository;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    private UserReplicaService userReplicaService;
+
+    @BeforeEach
+    void setUp() {
+        userReplicaService = new UserReplicaService(userReplicaRepository, watermarkRepository, profileRepository,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userReplicaService, "maxServeLag", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(userReplicaService, "statusRefresh", Duration.ZERO);
+        userReplicaService.registerMetrics();
+    }
+
+    @Test
+    void appliesUsersAndAdvancesTheWatermark() {
+        assertThat(userReplicaService.loadWatermark()).isZero();
+
+        userReplicaService.applyChanges(List.of(
+                UserProfileDTO.builder()
+                        .userId(1)
+                        .email("ana@example.com")
+                        .userType("FAN")
+                        .roles(Set.of("ROLE_USER"))
+                        .accountStatus(AccountStatusDTO.builder()
+                                .enabled(true)
+                                .accountNonExpired(true)
+                                .accountNonLocked(false)
+                                .credentialsNonExpired(true)
+                                .build())
+                        .profile(ProfileDTO.builder()
+                                .profileId(11)
+                                .name("Ana")
+                                .location(ProfileLocationDTO.builder()
+                                        .municipality("Puebla")
+                                        .state("Puebla")
+                                        .country("MX")
+                                        .build())
+                                .build())
+                        .updatedAt("2026-10-01T10:00:00")
+                        .build()),
+                42);
+        nextTransaction();
+        userReplicaService.markCaughtUp();
+
+        assertThat(userReplicaService.loadWatermark()).isEqualTo(42);
+
+        UserProfileDTO ana = userReplicaService.findUserProfile(1).orElseThrow();
+        assertThat(ana.getEmail()).isEqualTo("ana@example.com");
+        assertThat(ana.getUserType()).isEqualTo("FAN");
+        assertThat(ana.getRoles()).containsExactly("ROLE_USER");
+        assertThat(ana.getPassword()).isNull();
+        assertThat(ana.getAccountStatus().getEnabled()).isTrue();
+        assertThat(ana.getAccountStatus().getAccountNonLocked()).isFalse();
+        assertThat(ana.getProfile().getProfileId()).isEqualTo(11);
+        assertThat(ana.getProfile().getLocation().getMunicipality()).isEqualTo("Puebla");
+        assertThat(ana.getProfile().getLocation().getCountry()).isEqualTo("MX");
+        assertThat(ana.getUpdatedAt()).isEqualTo("2026-10-01T10:00:00");
+
+        assertThat(userReplicaService.findUserProfileByEmail("ana@example.com"))
+                .map(UserProfileDTO::getUserId)
+                .contains(1);
+    }
+
+    @Test
+    void createsMissingProfilesButLeavesExistingOnesUntouched() {
+        profileRepository.save(Profile.builder().profileId(11).name("Original").userId(1).build());
+        nextTransaction();
+
+        userReplicaService.applyChanges(List.of(
+                user(1, "ana@example.com", 11, "Ana"),
+                user(2, "luis@example.com", 12, "Luis"),
+                UserProfileDTO.builder().userId(3).email("sin-perfil@example.com").build()),
+                3);
+        nextTransaction();
+
+        assertThat(profileRepository.findById(11)).map(Profile::getName).contains("Original");
+        Profile created = profileRepository.findById(12).orElseThrow();
+        assertThat(created.getName()).isEqualTo("Luis");
+        assertThat(created.getUserId()).isEqualTo(2);
+        assertThat(profileRepository.count()).isEqualTo(2);
+        assertThat(userReplicaRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void skipsChangesWithoutUserIdOrEmail() {
+        userReplicaService.applyChanges(List.of(
+                UserProfileDTO.builder().email("sin-id@example.com").build(),
+                UserProfileDTO.builder().userId(5).build()),
+                7);
+        nextTransaction();
+
+        assertThat(userReplicaRepository.count()).isZero();
+        assertThat(userReplicaService.loadWatermark()).isEqualTo(7);
+    }
+
+    @Test
+    void tombstoneRemovesTheUserFromTheReplica() {
+        userReplicaService.applyChanges(List.of(
+                user(1, "ana@example.com", 11, "Ana"),
+                user(2, "luis@example.com", 12, "Luis")),
+                2);
+        nextTransaction();
+
+        userReplicaService.applyChanges(List.of(
+                UserProfileDTO.builder().userId(1).deleted(true).build(),
+                UserProfileDTO.builder().userId(99).deleted(true).build()),
+                4);
+        nextTransaction();
+
+        assertThat(userReplicaRepository.findById(1)).isEmpty();
+        assertThat(userReplicaRepository.findById(2)).isPresent();
+        // El perfil es de user-service: el tombstone solo borra la réplica
+        assertThat(profileRepository.existsById(11)).isTrue();
+        assertThat(userReplicaService.loadWatermark()).isEqualTo(4);
+    }
+
+    @Test
+    void reusedEmailBelongsToTheLatestChangeInFeedOrder() {
+        userReplicaService.applyChanges(List.of(user(1, "ana@example.com", null, null)), 1);
+        nextTransaction();
+
+        // El usuario 1 liberó el email en user-service, pero su cambio todavía no llegó
+        userReplicaService.applyChanges(List.of(user(2, "ana@example.com", null, null)), 2);
+        nextTransaction();
+        userReplicaService.markCaughtUp();
+
+        assertThat(userReplicaService.findUserProfileByEmail("ana@example.com"))
+                .map(UserProfileDTO::getUserId)
+                .contains(2);
+        assertThat(userReplicaRepository.findById(1)).isEmpty();
+
+        // Cuando llega el cambio del usuario 1 vuelve con su email nuevo
+        userReplicaService.applyChanges(List.of(user(1, "ana.nueva@example.com", null, null)), 3);
+        nextTransaction();
+
+        assertThat(userReplicaRepository.findByEmail("ana.nueva@example.com"))
+                .map(UserReplica::getUserId)
+                .contains(1);
+    }
+
+    @Test
+    void emailSwapWithinOneBatchIsApplied() {
+        userReplicaService.applyChanges(List.of(
+                user(1, "ana@example.com", null, null),
+                user(2, "luis@example.com", null, null)),
+                2);
+        nextTransaction();
+
+        userReplicaService.applyChanges(List.of(
+                user(1, "luis@example.com", null, null),
+                user(2, "ana@example.com", null, null)),
+                4);
+        nextTransaction();
+
+        assertThat(userReplicaRepository.findById(1)).map(UserReplica::getEmail).contains("luis@example.com");
+        assertThat(userReplicaRepository.findById(2)).map(UserReplica::getEmail).contains("ana@example.com");
+    }
+
+    @Test
+    void olderBatchIsDiscardedWithoutWriting() {
+        assertThat(userReplicaService.applyChanges(List.of(user(1, "ana.nueva@example.com", null, null)), 5))
+                .isTrue();
+        nextTransaction();
+
+        // Lote de una instancia atrasada: no pisa el email nuevo ni retrocede el watermark
+        assertThat(userReplicaService.applyChanges(List.of(
+                user(1, "ana@example.com", null, null),
+                user(2, "luis@example.com", null, null)),
+                3)).isFalse();
+        assertThat(userReplicaService.applyChanges(List.of(user(2, "luis@example.com", null, null)), 5))
+                .isFalse();
+        nextTransaction();
+
+        assertThat(userReplicaService.loadWatermark()).isEqualTo(5);
+        assertThat(userReplicaRepository.findById(1)).map(UserReplica::getEmail).contains("ana.nueva@example.com");
+        assertThat(userReplicaRepository.findById(2)).isEmpty();
+    }
+
+    @Test
+    void instancesWithoutTheLeaseServeOnceAnyInstanceCaughtUp() {
+        UserReplicaService otherInstance = new UserReplicaService(userReplicaRepository, watermarkRepository,
+                profileRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(otherInstance, "maxServeLag", Duration.ofMinutes(2));
+        ReflectionTestUtils.setField(otherInstance, "statusRefresh", Duration.ZERO);
+
+        // Feed vacío: no hay lotes, pero la réplica queda al día
+        assertThat(otherInstance.isServing()).isFalse();
+        userReplicaService.markCaughtUp();
+        nextTransaction();
+
+        assertThat(otherInstance.isServing()).isTrue();
+        assertThat(otherInstance.loadWatermark()).isZero();
+    }
+
+    @Test
+    void servesReadsOnlyWhileCaughtUp() {
+        userReplicaService.applyChanges(List.of(user(1, "ana@example.com", null, null)), 1);
+        nextTransaction();
+
+        // Nunca estuvo al día
+        assertThat(userReplicaService.isServing()).isFalse();
+        assertThat(userReplicaService.findUserProfile(1)).isEmpty();
+
+        userReplicaService.markCaughtUp();
+        assertThat(userReplicaService.isServing()).isTrue();
+        assertThat(userReplicaService.findUserProfile(1)).isPresent();
+
+        // Más atrasada que max-serve-lag: las lecturas van a user-service
+        ReflectionTestUtils.setField(userReplicaService, "maxServeLag", Duration.ZERO);
+        assertThat(userReplicaService.isServing()).isFalse();
+        assertThat(userReplicaService.findUserProfileByEmail("ana@example.com")).isEmpty();
+    }
+
+    private UserProfileDTO user(int userId, String email, Integer profileId, String name) {
+        return UserProfileDTO.builder()
+                .userId(userId)
+                .email(email)
+                .roles(Set.of("ROLE_USER"))
+                .profile(profileId == null ? null : ProfileDTO.builder().profileId(profileId).name(name).build())
+                .build();
+    }
+
+    /**
+     * Cada lote del scheduler es su propia transacción: se escribe y se vacía el contexto
+     */
+    private void nextTransaction() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.graphql_profile_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.graphql_profile_service.dto.UserProfileDTO;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Sincronización de la réplica contra un stub local del feed de cambios de user-service
+ */
+class UserReplicaSyncSchedulerTest {
+
+    private static final String USER_SERVICE_URL = "http://user-service";
+
+    private MockRestServiceServer userService;
+    private UserReplicaService userReplicaService;
+    private SchedulerLeaseService leaseService;
+    private UserReplicaSyncScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        RestTemplate restTemplate = new RestTemplate();
+        userService = MockRestServiceServer.bindTo(restTemplate).build();
+
+        UserServiceClient userServiceClient = new UserServiceClient(
+                restTemplate,
+                CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userServiceClient, "userServiceUrl", USER_SERVICE_URL);
+        userServiceClient.initializeIsolation();
+
+        userReplicaService = mock(UserReplicaService.class);
+        when(userReplicaService.applyChanges(anyList(), anyLong())).thenReturn(true);
+        leaseService = mock(SchedulerLeaseService.class);
+        when(leaseService.tryAcquire(eq("user-replica"), any())).thenReturn(true);
+
+        scheduler = new UserReplicaSyncScheduler(userServiceClient, userReplicaService, leaseService);
+        ReflectionTestUtils.setField(scheduler, "enabled", true);
+        ReflectionTestUtils.setField(scheduler, "leaseTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(scheduler, "pageSize", 2);
+        ReflectionTestUtils.setField(scheduler, "maxPagesPerRun", 10);
+    }
+
+    @Test
+    void appliesEachPageFromTheWatermarkUntilCaughtUp() {
+        when(userReplicaService.loadWatermark()).thenReturn(40L);
+
+        stubChanges(40, """
+                {"users": [
+                    {"userId": 1, "email": "ana@example.com", "roles": ["ROLE_USER"],
+                     "accountStatus": {"enabled": true, "accountNonLocked": true},
+                     "profile": {"profileId": 11, "name": "Ana",
+                                 "location": {"municipality": "Puebla", "state": "Puebla", "country": "MX"}}},
+                    {"userId": 2, "email": "luis@example.com", "roles": ["ROLE_USER", "ROLE_ADMIN"]}
+                ], "watermark": 42, "hasMore": true}
+                """);
+        stubChanges(42, """
+                {"users": [{"userId": 1, "email": "ana.nueva@example.com"}], "watermark": 43, "hasMore": false}
+                """);
+
+        scheduler.synchronize();
+
+        userService.verify();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<UserProfileDTO>> batches = ArgumentCaptor.forClass(List.class);
+        InOrder order = inOrder(userReplicaService);
+        order.verify(userReplicaService).applyChanges(batches.capture(), eq(42L));
+        order.verify(userReplicaService).applyChanges(batches.capture(), eq(43L));
+        order.verify(userReplicaService).markCaughtUp();
+
+        List<UserProfileDTO> firstPage = batches.getAllValues().get(0);
+        assertThat(firstPage).extracting(UserProfileDTO::getUserId).containsExactly(1, 2);
+        assertThat(firstPage.get(0).getProfile().getLocation().getMunicipality()).isEqualTo("Puebla");
+        assertThat(firstPage.get(0).getAccountStatus().getEnabled()).isTrue();
+        assertThat(firstPage.get(1).getRoles()).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+
+        assertThat(batches.getAllValues().get(1))
+                .extracting(UserProfileDTO::getEmail)
+                .containsExactly("ana.nueva@example.com");
+    }
+
+    @Test
+    void emptyFeedMarksReplicaCaughtUpWithoutWriting() {
+        when(userReplicaService.loadWatermark()).thenReturn(43L);
+
+        stubChanges(43, """
+                {"users": [], "watermark": 43, "hasMore": false}
+                """);
+
+        scheduler.synchronize();
+
+        userService.verify();
+        verify(userReplicaService, never()).applyChanges(anyList(), anyLong());
+        verify(userReplicaService).markCaughtUp();
+    }
+
+    @Test
+    void userServiceFailureKeepsWatermarkAndReplicaLagging() {
+        when(userReplicaService.loadWatermark()).thenReturn(43L);
+
+        userService.expect(requestTo(changesUrl(43)))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withServerError());
+
+        scheduler.synchronize();
+
+        userService.verify();
+        verify(userReplicaService, never()).applyChanges(anyList(), anyLong());
+        verify(userReplicaService, never()).markCaughtUp();
+    }
+
+    @Test
+    void instanceWithoutTheLeaseDoesNotSynchronize() {
+        when(leaseService.tryAcquire(eq("user-replica"), any())).thenReturn(false);
+
+        scheduler.synchronize();
+
+        userService.verify();
+        verify(userReplicaService, never()).loadWatermark();
+        verify(userReplicaService, never()).applyChanges(anyList(), anyLong());
+    }
+
+    @Test
+    void stopsWhenAnotherInstanceAlreadyAppliedFurther() {
+        when(userReplicaService.loadWatermark()).thenReturn(40L);
+        when(userReplicaService.applyChanges(anyList(), eq(42L))).thenReturn(false);
+
+        stubChanges(40, """
+                {"users": [{"userId": 1, "email": "ana@example.com"}], "watermark": 42, "hasMore": true}
+                """);
+
+        scheduler.synchronize();
+
+        userService.verify();
+        verify(userReplicaService, never()).markCaughtUp();
+    }
+
+    private void stubChanges(long since, String body) {
+        userService.expect(requestTo(changesUrl(since)))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+    }
+
+    private static String changesUrl(long since) {
+        return USER_SERVICE_URL + "/api/v1/users/internal/changes?since=" + since + "&limit=2";
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.graphql_profile_service.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerInterceptor;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerProperties;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.loadbalancer.blocking.client.BlockingLoadBalancerClient;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import com.example.graphql_profile_service.config.LatencyAwareLoadBalancer;
+import com.example.graphql_profile_service.config.RestTemplateConfig;
+import com.example.graphql_profile_service.dto.UserProfileDTO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Hedging de los GET a user-service contra dos instancias HTTP locales
+ * detrás de LatencyAwareLoadBalancer
+ *
+ * Usa el RestTemplate real (DeadlineRequestFactory): así el intento perdedor
+ * se aborta de verdad y su conexión vuelve al pool.
+ */
+class UserServiceClientHedgingTest {
+
+    private static final String SERVICE_ID = "user-service";
+
+    // Mucho más que cualquier espera del test: si el perdedor no se abortara, su conexión seguiría tomada
+    private static final long STALLED_SECONDS = 10;
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<ServiceInstance> instances = new ArrayList<>();
+    private ExecutorService serverExecutor;
+    private final CountDownLatch releaseStalled = new CountDownLatch(1);
+
+    // Comportamiento de cada request, en orden de llegada (el resto responde de inmediato)
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile Behavior[] behaviors = {};
+
+    // Instancia que atendió cada request y hilo que lo envió, en orden de llegada
+    private final List<String> servedBy = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> sentFrom = Collections.synchronizedList(new ArrayList<>());
+
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private SimpleMeterRegistry meterRegistry;
+    private UserServiceClient client;
+
+    private enum Behavior {
+        FAST,
+        SLOW,
+        STALLED
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        startInstance("a");
+        startInstance("b");
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        httpClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+
+        // Calienta la conexión a cada instancia, el balanceador y Jackson: el primer
+        // intento elige instancia y llega al servidor antes que el hedge
+        RestTemplate direct = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        for (ServiceInstance instance : instances) {
+            direct.getForObject(instance.getUri() + "/api/v1/users/internal/0", UserProfileDTO.class);
+        }
+        RestTemplate loadBalanced = loadBalancedRestTemplate(instances);
+        loadBalanced.getForObject("http://" + SERVICE_ID + "/api/v1/users/internal/0", UserProfileDTO.class);
+        requests.set(0);
+        servedBy.clear();
+
+        client = hedgingClient(loadBalanced, "http://" + SERVICE_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseStalled.countDown();
+        client.shutdownHedging();
+        servers.forEach(server -> server.stop(0));
+        serverExecutor.shutdownNow();
+        connectionManager.close();
+    }
+
+    @Test
+    void fastPrimaryAnswersWithoutHedging() {
+        behaviors = new Behavior[] { Behavior.FAST };
+
+        assertThat(client.getUserProfile(1).getEmail()).isEqualTo("request-1@example.com");
+
+        assertThat(requests).hasValue(1);
+        assertThat(counter("outbound.hedge.fired")).isZero();
+    }
+
+    @Test
+    void primaryRunsOnTheCallersThreadAndOnlyTheHedgeIsHandedOff() {
+        behaviors = new Behavior[] { Behavior.SLOW, Behavior.STALLED };
+
+        client.getUserProfile(1);
+
+        assertThat(sentFrom).hasSize(2);
+        assertThat(sentFrom.get(0)).isEqualTo(Thread.currentThread().getName());
+        assertThat(sentFrom.get(1)).startsWith("user-service-hedge-");
+    }
+
+    @Test
+    void hedgeWinsAndTheStalledPrimaryIsAborted() throws InterruptedException {
+        behaviors = new Behavior[] { Behavior.STALLED, Behavior.FAST };
+
+        assertThat(client.getUserProfile(1).getEmail()).isEqualTo("request-2@example.com");
+
+        assertThat(requests).hasValue(2);
+        assertThat(counter("outbound.hedge.fired")).isEqualTo(1);
+        assertThat(counter("outbound.hedge.won")).isEqualTo(1);
+        assertHedgeWentToTheOtherInstance();
+        assertLeasedConnectionsReleased();
+    }
+
+    @Test
+    void primaryWinsAndTheStalledHedgeIsAborted() throws InterruptedException {
+        behaviors = new Behavior[] { Behavior.SLOW, Behavior.STALLED };
+
+        assertThat(client.getUserByEmail("ana@example.com").getEmail()).isEqualTo("request-1@example.com");
+
+        assertThat(requests).hasValue(2);
+        assertThat(counter("outbound.hedge.fired")).isEqualTo(1);
+        assertThat(counter("outbound.hedge.won")).isZero();
+        assertHedgeWentToTheOtherInstance();
+        assertLeasedConnectionsReleased();
+    }
+
+    @Test
+    void exhaustedBudgetWaitsForThePrimary() {
+        // 5%: el primer request no junta un hedge entero
+        ReflectionTestUtils.setField(client, "hedgingBudgetRatio", 0.05);
+        client.shutdownHedging();
+        client.initializeIsolation();
+        behaviors = new Behavior[] { Behavior.SLOW };
+
+        assertThat(client.getUserProfile(1).getEmail()).isEqualTo("request-1@example.com");
+
+        assertThat(requests).hasValue(1);
+        assertThat(counter("outbound.hedge.denied")).isEqualTo(1);
+        assertThat(counter("outbound.hedge.fired")).isZero();
+    }
+
+    @Test
+    void singleInstanceIsNotHedged() {
+        client.shutdownHedging();
+        client = hedgingClient(loadBalancedRestTemplate(instances.subList(0, 1)), "http://" + SERVICE_ID);
+        behaviors = new Behavior[] { Behavior.SLOW };
+
+        assertThat(client.getUserProfile(1).getEmail()).isEqualTo("request-1@example.com");
+
+        assertThat(requests).hasValue(1);
+        assertThat(counter("outbound.hedge.skipped")).isEqualTo(1);
+        assertThat(counter("outbound.hedge.fired")).isZero();
+    }
+
+    @Test
+    void directUrlIsNotHedged() {
+        String url = instances.get(0).getUri().toString();
+        RestTemplateConfig restTemplateConfig = new RestTemplateConfig();
+        ReflectionTestUtils.setField(restTemplateConfig, "userServiceUrl", url);
+        ReflectionTestUtils.setField(restTemplateConfig, "totalTimeout", Duration.ofSeconds(30));
+
+        client.shutdownHedging();
+        client = hedgingClient(restTemplateConfig.restTemplate(new RestTemplateBuilder(), httpClient, null), url);
+        behaviors = new Behavior[] { Behavior.SLOW };
+
+        assertThat(client.getUserProfile(1).getEmail()).isEqualTo("request-1@example.com");
+
+        // El hedge iría al mismo host
+        assertThat(requests).hasValue(1);
+        assertThat(counter("outbound.hedge.skipped")).isEqualTo(1);
+    }
+
+    private void startInstance(String name) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v1/users/internal/", exchange -> handle(name, exchange));
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        servers.add(server);
+        instances.add(new DefaultServiceInstance(name, SERVICE_ID, "127.0.0.1",
+                server.getAddress().getPort(), false));
+    }
+
+    private UserServiceClient hedgingClient(RestTemplate restTemplate, String url) {
+        restTemplate.getInterceptors().add((request, body, execution) -> {
+            sentFrom.add(Thread.currentThread().getName());
+            return execution.execute(request, body);
+        });
+
+        meterRegistry = new SimpleMeterRegistry();
+        UserServiceClient hedgingClient = new UserServiceClient(restTemplate, CircuitBreakerRegistry.ofDefaults(),
+                BulkheadRegistry.ofDefaults(), meterRegistry);
+        ReflectionTestUtils.setField(hedgingClient, "userServiceUrl", url);
+        ReflectionTestUtils.setField(hedgingClient, "hedgingEnabled", true);
+        ReflectionTestUtils.setField(hedgingClient, "hedgingPercentile", 0.95);
+        ReflectionTestUtils.setField(hedgingClient, "hedgingInitialDelay", Duration.ofMillis(200));
+        ReflectionTestUtils.setField(hedgingClient, "hedgingMinDelay", Duration.ofMillis(20));
+        ReflectionTestUtils.setField(hedgingClient, "hedgingBudgetRatio", 1.0);
+        ReflectionTestUtils.setField(hedgingClient, "hedgingMaxConcurrent", 2);
+        hedgingClient.initializeIsolation();
+        return hedgingClient;
+    }
+
+    /**
+     * RestTemplate con el interceptor de Spring Cloud LoadBalancer sobre las instancias dadas
+     */
+    private RestTemplate loadBalancedRestTemplate(List<ServiceInstance> available) {
+        RestTemplateConfig restTemplateConfig = new RestTemplateConfig();
+        ReflectionTestUtils.setField(restTemplateConfig, "totalTimeout", Duration.ofSeconds(30));
+        RestTemplate restTemplate = restTemplateConfig.loadBalancedRestTemplate(httpClient);
+
+        LatencyAwareLoadBalancer loadBalancer = new LatencyAwareLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider(SERVICE_ID, available.toArray(ServiceInstance[]::new)),
+                SERVICE_ID,
+                new LatencyAwareLoadBalancer.Settings(Duration.ofSeconds(10), Duration.ofMillis(100), 5,
+                        Duration.ofSeconds(30)));
+
+        ReactiveLoadBalancer.Factory<ServiceInstance> factory = new ReactiveLoadBalancer.Factory<>() {
+            @Override
+            public ReactiveLoadBalancer<ServiceInstance> getInstance(String serviceId) {
+                return loadBalancer;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <X> Map<String, X> getInstances(String name, Class<X> type) {
+                return type == LoadBalancerLifecycle.class
+                        ? Map.of("latencyAwareLoadBalancer", (X) loadBalancer)
+                        : Map.of();
+            }
+
+            @Override
+            public <X> X getInstance(String name, Class<?> clazz, Class<?>... generics) {
+                return null;
+            }
+
+            @Override
+            public LoadBalancerProperties getProperties(String serviceId) {
+                return new LoadBalancerProperties();
+            }
+        };
+
+        restTemplate.getInterceptors().add(new LoadBalancerInterceptor(new BlockingLoadBalancerClient(factory)));
+        return restTemplate;
+    }
+
+    private void handle(String instance, HttpExchange exchange) throws IOException {
+        int number = requests.incrementAndGet();
+        servedBy.add(instance);
+        Behavior[] current = behaviors;
+        Behavior behavior = number <= current.length ? current[number - 1] : Behavior.FAST;
+
+        try {
+            switch (behavior) {
+                case SLOW -> Thread.sleep(600);
+                case STALLED -> releaseStalled.await(STALLED_SECONDS, TimeUnit.SECONDS);
+                case FAST -> {
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        byte[] body = ("{\"userId\": 1, \"email\": \"request-" + number + "@example.com\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try {
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException e) {
+            // El cliente abortó el intento
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void assertHedgeWentToTheOtherInstance() {
+        assertThat(servedBy).hasSize(2);
+        assertThat(servedBy.get(1)).isNotEqualTo(servedBy.get(0));
+    }
+
+    /**
+     * El intento perdedor sigue esperando en el servidor, pero su conexión ya se liberó
+     */
+    private void assertLeasedConnectionsReleased() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (connectionManager.getTotalStats().getLeased() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(connectionManager.getTotalStats().getLeased()).isZero();
+        assertThat(releaseStalled.getCount()).isEqualTo(1);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter(name, "dependency", "user-service").count();
+    }
+}